@@ -0,0 +1,42 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API key encrypt/decrypt, each including the key derivation done on every call
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ApiKeyEncryptionBenchmark {
+
+    @Param({"32", "256"})
+    public int keyLength;
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private ApiKeyEncryptionService service;
+    private String salt;
+    private String apiKey;
+    private String encrypted;
+
+    @Setup
+    public void setUp() throws Exception {
+        service = BenchmarkData.apiKeyEncryptionService();
+        salt = service.generateSalt();
+        apiKey = "k".repeat(keyLength);
+        encrypted = service.encryptApiKey(apiKey, PASSWORD, salt);
+    }
+
+    @Benchmark
+    public String encrypt() throws Exception {
+        return service.encryptApiKey(apiKey, PASSWORD, salt);
+    }
+
+    @Benchmark
+    public String decrypt() throws Exception {
+        return service.decryptApiKey(encrypted, PASSWORD, salt);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Payloads and service wiring shared by the benchmarks (no Spring context is started)
+ */
+public final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Configured like the application's mapper (Java time module, ISO dates)
+     */
+    public static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    /**
+     * Set an @Autowired or @Value field the way Spring would
+     */
+    public static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + fieldName, e);
+        }
+    }
+
+    /**
+     * Tab-like data: each of the depth levels holds fields values (numbers, strings, flags and
+     * short lists, as in the calculator tabs) plus one nested section
+     */
+    public static Map<String, Object> payload(int fields, int depth) {
+        return payload(fields, depth, 0);
+    }
+
+    private static Map<String, Object> payload(int fields, int depth, int level) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < fields; i++) {
+            String key = "field" + i;
+            switch (i % 4) {
+                case 0 -> data.put(key, i * 1.25 + level);
+                case 1 -> data.put(key, "value " + i + " at level " + level);
+                case 2 -> data.put(key, i % 3 == 0);
+                default -> data.put(key, List.of(i, i + 1, i + 2));
+            }
+        }
+        if (level + 1 < depth) {
+            data.put("section" + level, payload(fields, depth, level + 1));
+        }
+        return data;
+    }
+
+    /**
+     * Tab-like data (see payload) of at least bytes of JSON, nested three levels deep
+     */
+    public static Map<String, Object> payloadOfSize(ObjectMapper objectMapper, int bytes) {
+        int fields = 4;
+        Map<String, Object> data = payload(fields, 3);
+        int size = jsonSize(objectMapper, data);
+        while (size < bytes) {
+            // Size grows linearly with fields; scale towards the target and step up if still short
+            fields = Math.max(fields + 1, (int) ((long) fields * bytes / size));
+            data = payload(fields, 3);
+            size = jsonSize(objectMapper, data);
+        }
+        return data;
+    }
+
+    public static int jsonSize(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value).length;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A delta touching every changeEvery-th value of the payload at every level
+     */
+    public static Map<String, Object> delta(Map<String, Object> payload, int changeEvery) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        int i = 0;
+        for (Map.Entry<String, Object> entry : payload.entrySet()) {
+            if (entry.getValue() instanceof Map<?, ?> nested) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> section = (Map<String, Object>) nested;
+                delta.put(entry.getKey(), delta(section, changeEvery));
+            } else if (i++ % changeEvery == 0) {
+                delta.put(entry.getKey(), "changed");
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Tab data as the frontend stores it for a tab of this type: the mutable sections of the
+     * templates in next/src/services/tabTemplateService.js with every field edited, plus the
+     * seismic results saved after a lookup (snow_load, wind_load or seismic)
+     */
+    public static Map<String, Object> tabTemplate(String tabType) {
+        return switch (tabType) {
+            case "snow_load" -> map(
+                "snowDefaults", map("location", "West Vancouver", "slope", 15, "is", 1.15, "ca", 1.0, "cb", 0.8),
+                "driftDefaults", map("a", 1.5, "h", 4.2, "hp_lower", 1.1, "x", 2.5,
+                    "ws_upper", 12.5, "ls_upper", 30.0, "hp_upper", 0.9,
+                    "ws_lower2", 18.0, "ls_lower2", 24.0,
+                    "ws_lower3", 16.0, "ls_lower3", 28.0));
+            case "wind_load" -> map(
+                "windDefaults", map("location", "Richmond", "iw", 1.15, "ce", 0.9, "ct", 1.0));
+            case "seismic" -> map(
+                "seismicTabData", map("designer", "J. Smith, P.Eng.", "address", "1200 Marine Drive, North Vancouver, BC",
+                    "project", "Marine Drive Mixed-Use Building", "revision", "Rev 2", "date", "2024-05-14",
+                    "bldgCode", "NBC 2020"),
+                "seismicResults", map(
+                    "site_class", "D",
+                    "coordinates", map("lat", 49.3236, "lon", -123.0921),
+                    "address_checked", "1200 Marine Drive, North Vancouver, BC V7P 1T2, Canada",
+                    "rgb", List.of(201, 187, 134),
+                    "most_similar_soil", map("id", 7, "sediment_name", "Capilano sediments: sand and gravel",
+                        "site_class", "D", "soil_pressure_psf", 3000, "color_r", 204, "color_g", 190, "color_b", 137),
+                    "soil_pressure", 3000,
+                    "sa_site", List.of(0.981, 0.874, 0.512, 0.318, 0.104, 0.0391, 0.392),
+                    "sa_x450", List.of(0.842, 0.721, 0.398, 0.241, 0.0745, 0.0272, 0.371)));
+            default -> throw new IllegalArgumentException("Unknown tab type: " + tabType);
+        };
+    }
+
+    private static Map<String, Object> map(Object... keysAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+
+    /**
+     * Service writing tab data with the named codec (json or deflate, see app.encryption.tab-codec)
+     */
+    public static TabDataEncryptionService tabDataEncryptionService(ObjectMapper objectMapper, String codec) {
+        JsonTabDataCodec json = new JsonTabDataCodec();
+        inject(json, "objectMapper", objectMapper);
+        DeflateTabDataCodec deflate = new DeflateTabDataCodec();
+        inject(deflate, "objectMapper", objectMapper);
+        inject(deflate, "level", 6);
+
+        TabDataEncryptionService service = new TabDataEncryptionService();
+        inject(service, "objectMapper", objectMapper);
+        inject(service, "applicationSecret", "benchmark-secret");
+        inject(service, "writeCodecName", codec);
+        inject(service, "codecs", List.<TabDataCodec>of(json, deflate));
+        inject(service, "cryptoMetrics", cryptoMetrics());
+        service.initCodecs();
+        service.initMetrics();
+        return service;
+    }
+
+    public static ApiKeyEncryptionService apiKeyEncryptionService() {
+        ApiKeyEncryptionService service = new ApiKeyEncryptionService();
+        inject(service, "applicationSecret", "benchmark-secret");
+        inject(service, "cryptoMetrics", cryptoMetrics());
+        service.initMetrics();
+        return service;
+    }
+
+    /**
+     * Meters are recorded as in production, into a registry nobody reads
+     */
+    public static CryptoMetrics cryptoMetrics() {
+        return new CryptoMetrics(new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WorkspaceDataService.deepMerge of a partial tab update into stored tab data
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DeepMergeBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int fields;
+
+    @Param({"1", "4", "8"})
+    public int depth;
+
+    // Every n-th value at each level changes: 1 = full rewrite, 10 = a typical edit
+    @Param({"1", "10"})
+    public int changeEvery;
+
+    private Map<String, Object> current;
+    private Map<String, Object> delta;
+
+    @Setup
+    public void setUp() {
+        current = BenchmarkData.payload(fields, depth);
+        delta = BenchmarkData.delta(current, changeEvery);
+    }
+
+    @Benchmark
+    public Map<String, Object> merge() {
+        return WorkspaceDataService.deepMerge(current, delta, false);
+    }
+
+    @Benchmark
+    public Map<String, Object> mergePatch() {
+        return WorkspaceDataService.deepMerge(current, delta, true);
+    }
+}
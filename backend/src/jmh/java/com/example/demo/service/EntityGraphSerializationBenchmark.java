@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Page;
+import com.example.demo.model.Project;
+import com.example.demo.model.Tab;
+import com.example.demo.model.TabData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a workspace tree (projects -> pages -> tabs -> tab data), the
+ * response body of GET /api/workspace
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EntityGraphSerializationBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int projects;
+
+    // Size of each tab's data; pages and tabs per parent stay at 3
+    @Param({"10", "100"})
+    public int fields;
+
+    @Param({"1", "4"})
+    public int depth;
+
+    private ObjectMapper objectMapper;
+    private Map<String, Object> workspace;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkData.objectMapper();
+        LocalDateTime now = LocalDateTime.now();
+        List<Project> tree = new ArrayList<>();
+        for (int p = 0; p < projects; p++) {
+            Project project = new Project();
+            project.setId(UUID.randomUUID());
+            project.setUserId(1L);
+            project.setName("Project " + p);
+            project.setCreatedAt(now);
+            project.setUpdatedAt(now);
+            List<Page> pages = new ArrayList<>();
+            for (int g = 0; g < 3; g++) {
+                Page page = new Page();
+                page.setId(UUID.randomUUID());
+                page.setProjectId(project.getId());
+                page.setName("Page " + g);
+                page.setCreatedAt(now);
+                page.setUpdatedAt(now);
+                List<Tab> tabs = new ArrayList<>();
+                for (int t = 0; t < 3; t++) {
+                    Tab tab = new Tab();
+                    tab.setId(UUID.randomUUID());
+                    tab.setPageId(page.getId());
+                    tab.setName("Tab " + t);
+                    tab.setTabType("snow_load");
+                    tab.setCreatedAt(now);
+                    tab.setUpdatedAt(now);
+                    TabData tabData = new TabData();
+                    tabData.setTabId(tab.getId());
+                    tabData.setData(BenchmarkData.payload(fields, depth));
+                    tabData.setCreatedAt(now);
+                    tabData.setUpdatedAt(now);
+                    tab.setTabData(tabData);
+                    tabs.add(tab);
+                }
+                page.setTabs(tabs);
+                pages.add(page);
+            }
+            project.setPages(pages);
+            tree.add(project);
+        }
+        workspace = Map.of("projects", tree);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(workspace);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Reference copy of the original TabDataEncryptionService encrypt/decrypt path, for comparison:
+ * new SecureRandom, MessageDigest and Cipher per call, JSON String -> bytes -> ciphertext ->
+ * IV || ciphertext copy -> Base64, and the reverse with copies of IV and ciphertext
+ */
+public class LegacyTabDataEncryption {
+
+    private static final String ALGORITHM = "AES/GCM/NoPadding";
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH = 16;
+    private static final int KEY_LENGTH = 32;
+
+    private final ObjectMapper objectMapper;
+    private final String applicationSecret;
+
+    public LegacyTabDataEncryption(ObjectMapper objectMapper, String applicationSecret) {
+        this.objectMapper = objectMapper;
+        this.applicationSecret = applicationSecret;
+    }
+
+    public String encryptTabData(Map<String, Object> tabData, String userPassword, String userSalt) throws Exception {
+        if (tabData == null || tabData.isEmpty()) {
+            return null;
+        }
+        String jsonData = objectMapper.writeValueAsString(tabData);
+        byte[] derivedKey = deriveKey(userPassword, userSalt, applicationSecret);
+
+        SecureRandom random = new SecureRandom();
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        random.nextBytes(iv);
+
+        SecretKey secretKey = new SecretKeySpec(derivedKey, "AES");
+        Cipher cipher = Cipher.getInstance(ALGORITHM);
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
+        byte[] encrypted = cipher.doFinal(jsonData.getBytes());
+
+        byte[] combined = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> decryptTabData(String encryptedData, String userPassword, String userSalt) throws Exception {
+        if (encryptedData == null || encryptedData.isEmpty()) {
+            return null;
+        }
+        byte[] derivedKey = deriveKey(userPassword, userSalt, applicationSecret);
+        byte[] combined = Base64.getDecoder().decode(encryptedData);
+
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        byte[] encrypted = new byte[combined.length - GCM_IV_LENGTH];
+        System.arraycopy(combined, 0, iv, 0, GCM_IV_LENGTH);
+        System.arraycopy(combined, GCM_IV_LENGTH, encrypted, 0, encrypted.length);
+
+        SecretKey secretKey = new SecretKeySpec(derivedKey, "AES");
+        Cipher cipher = Cipher.getInstance(ALGORITHM);
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
+        String jsonData = new String(cipher.doFinal(encrypted));
+        return objectMapper.readValue(jsonData, Map.class);
+    }
+
+    private static byte[] deriveKey(String userPassword, String userSalt, String appSecret) throws Exception {
+        String combined = userPassword + userSalt + appSecret;
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] hash = digest.digest(combined.getBytes());
+        byte[] keyBytes = new byte[KEY_LENGTH];
+        System.arraycopy(hash, 0, keyBytes, 0, KEY_LENGTH);
+        return keyBytes;
+    }
+}
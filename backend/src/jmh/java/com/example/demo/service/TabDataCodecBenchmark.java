@@ -0,0 +1,77 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tab data codecs (json, deflate) on tab data shaped like the frontend templates
+ * (BenchmarkData.tabTemplate), and on a 64 KB synthetic payload for comparison: codec
+ * encode/decode alone and the full binary encrypt/decrypt.
+ *
+ * Sizes do not vary between invocations, so they are printed once per trial: the JSON size,
+ * the codec output and the stored blob (codec output plus format byte, codec id, IV and GCM tag).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TabDataCodecBenchmark {
+
+    @Param({"json", "deflate"})
+    public String codec;
+
+    @Param({"snow_load", "wind_load", "seismic", "synthetic-64KB"})
+    public String template;
+
+    private TabDataCodec tabDataCodec;
+    private TabDataEncryptionService service;
+    private Map<String, Object> payload;
+    private byte[] encoded;
+    private byte[] key;
+    private byte[] blob;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = BenchmarkData.objectMapper();
+        payload = template.equals("synthetic-64KB")
+            ? BenchmarkData.payloadOfSize(objectMapper, 65536)
+            : BenchmarkData.tabTemplate(template);
+
+        service = BenchmarkData.tabDataEncryptionService(objectMapper, codec);
+        List<TabDataCodec> codecs = List.of(new JsonTabDataCodec(), new DeflateTabDataCodec());
+        tabDataCodec = codecs.stream().filter(candidate -> candidate.getName().equals(codec)).findFirst().orElseThrow();
+        BenchmarkData.inject(tabDataCodec, "objectMapper", objectMapper);
+        if (tabDataCodec instanceof DeflateTabDataCodec) {
+            BenchmarkData.inject(tabDataCodec, "level", 6);
+        }
+
+        encoded = tabDataCodec.encode(payload);
+        key = service.deriveTabKey("correct horse battery staple", service.generateSalt());
+        blob = service.encryptTabDataBinary(payload, key);
+        System.out.printf("%n%s / %s: json %d B, encoded %d B, stored %d B%n", template, codec,
+            BenchmarkData.jsonSize(objectMapper, payload), encoded.length, blob.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return tabDataCodec.encode(payload);
+    }
+
+    @Benchmark
+    public Map<String, Object> decode() throws Exception {
+        return tabDataCodec.decode(encoded);
+    }
+
+    @Benchmark
+    public byte[] encryptBinary() throws Exception {
+        return service.encryptTabDataBinary(payload, key);
+    }
+
+    @Benchmark
+    public Map<String, Object> decryptBinary() throws Exception {
+        return service.decryptTabDataBinary(blob, key);
+    }
+}
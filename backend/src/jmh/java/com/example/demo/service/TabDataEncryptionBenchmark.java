@@ -0,0 +1,80 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tab data encrypt/decrypt for 1 KB, 64 KB and 1 MB of JSON:
+ * - legacy: the original path (LegacyTabDataEncryption), key derived from the password per call
+ * - text: the current engine with the same inputs and the same Base64 text output
+ * - binary: the bytea format with the configured codec and an already derived key, as saves use
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TabDataEncryptionBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    // Serialized JSON size of the tab data
+    @Param({"1024", "65536", "1048576"})
+    public int payloadBytes;
+
+    private TabDataEncryptionService service;
+    private LegacyTabDataEncryption legacy;
+    private Map<String, Object> payload;
+    private String salt;
+    private byte[] key;
+    private byte[] blob;
+    private String text;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = BenchmarkData.objectMapper();
+        // Binary format with the production codec; TabDataCodecBenchmark compares the codecs
+        service = BenchmarkData.tabDataEncryptionService(objectMapper, "deflate");
+        legacy = new LegacyTabDataEncryption(objectMapper, "benchmark-secret");
+        payload = BenchmarkData.payloadOfSize(objectMapper, payloadBytes);
+        salt = service.generateSalt();
+        key = service.deriveTabKey(PASSWORD, salt);
+        blob = service.encryptTabDataBinary(payload, key);
+        // Both text paths produce the same format, so each decrypts the other's output
+        text = legacy.encryptTabData(payload, PASSWORD, salt);
+        if (!service.decryptTabData(text, PASSWORD, salt).equals(payload)) {
+            throw new IllegalStateException("Current engine cannot read the legacy format");
+        }
+    }
+
+    @Benchmark
+    public String encryptLegacy() throws Exception {
+        return legacy.encryptTabData(payload, PASSWORD, salt);
+    }
+
+    @Benchmark
+    public Map<String, Object> decryptLegacy() throws Exception {
+        return legacy.decryptTabData(text, PASSWORD, salt);
+    }
+
+    @Benchmark
+    public String encryptText() throws Exception {
+        return service.encryptTabData(payload, PASSWORD, salt);
+    }
+
+    @Benchmark
+    public Map<String, Object> decryptText() throws Exception {
+        return service.decryptTabData(text, PASSWORD, salt);
+    }
+
+    @Benchmark
+    public byte[] encryptBinary() throws Exception {
+        return service.encryptTabDataBinary(payload, key);
+    }
+
+    @Benchmark
+    public Map<String, Object> decryptBinary() throws Exception {
+        return service.decryptTabDataBinary(blob, key);
+    }
+}
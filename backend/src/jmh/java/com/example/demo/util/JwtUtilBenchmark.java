@@ -0,0 +1,113 @@
+package com.example.demo.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing and verifying the HS512 tokens checked on every authenticated request.
+ *
+ * perRequestBefore/perRequestAfter compare the token work of one authenticated workspace request:
+ * before, JwtFilter called getUsernameFromToken + validateToken and the controller validateToken +
+ * getUsernameFromToken, each a full parse and HMAC check with a newly built parser; after, the
+ * filter and the controller share one parse through getClaimsFromRequest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtUtilBenchmark {
+
+    // Same secret as JwtUtil, for the reference implementation of the old parse path
+    private static final Key KEY = Keys.hmacShaKeyFor(
+        "ReplaceWithATrulyRandomBase64StringWithAtLeast64BytesWorthOfData!".getBytes(StandardCharsets.UTF_8));
+
+    // Subject (email) length, which sets the token size
+    @Param({"16", "256"})
+    public int subjectLength;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        token = jwtUtil.generateToken("u".repeat(subjectLength - 12) + "@example.com");
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateToken("user@example.com");
+    }
+
+    @Benchmark
+    public Claims parseClaims() {
+        return jwtUtil.getClaimsFromToken(token);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String perRequestBefore() {
+        // JwtFilter
+        String email = legacyGetUsername(token);
+        if (email == null || !legacyValidate(token)) {
+            return null;
+        }
+        // WorkspaceController.getUserIdFromRequest
+        return legacyValidate(token) ? legacyGetUsername(token) : null;
+    }
+
+    @Benchmark
+    public String perRequestAfter() {
+        HttpServletRequest request = request("Bearer " + token);
+        // JwtFilter
+        Claims claims = jwtUtil.getClaimsFromRequest(request);
+        if (claims == null) {
+            return null;
+        }
+        // WorkspaceController.getUserIdFromRequest
+        return jwtUtil.getClaimsFromRequest(request).getSubject();
+    }
+
+    // ==================== OLD PARSE PATH ====================
+
+    private static String legacyGetUsername(String token) {
+        return Jwts.parserBuilder().setSigningKey(KEY).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    private static boolean legacyValidate(String token) {
+        try {
+            Jwts.parserBuilder().setSigningKey(KEY).build().parseClaimsJws(token);
+            return true;
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Just enough of a request for getClaimsFromRequest: one header and the attributes
+     */
+    private static HttpServletRequest request(String authorization) {
+        Map<String, Object> attributes = new HashMap<>();
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "getHeader" -> "Authorization".equalsIgnoreCase((String) args[0]) ? authorization : null;
+                case "getAttribute" -> attributes.get((String) args[0]);
+                case "setAttribute" -> attributes.put((String) args[0], args[1]);
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.loadtest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements each endpoint executes while the load test runs: the DataSource is
+ * wrapped so every statement execution is charged to the request on the current thread, and a
+ * filter books the total under "METHOD /route/{pattern}" when the request completes.
+ * Only on the load-test classpath.
+ */
+@Configuration
+public class StatementCountingConfig {
+
+    private static final ThreadLocal<long[]> CURRENT_REQUEST = new ThreadLocal<>();
+
+    static final Map<String, LongAdder> STATEMENTS = new ConcurrentHashMap<>();
+    static final Map<String, LongAdder> REQUESTS = new ConcurrentHashMap<>();
+
+    static void reset() {
+        STATEMENTS.clear();
+        REQUESTS.clear();
+    }
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public OncePerRequestFilter statementCountingFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                long[] statements = new long[1];
+                CURRENT_REQUEST.set(statements);
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    CURRENT_REQUEST.remove();
+                    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    String endpoint = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+                    STATEMENTS.computeIfAbsent(endpoint, key -> new LongAdder()).add(statements[0]);
+                    REQUESTS.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+                }
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor statementCountingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return proxy(DataSource.class, dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Proxy a JDBC object so connections and statements it hands out are proxied too, and every
+     * execute* call on a statement counts once (a batch is one round trip)
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (Statement.class.isAssignableFrom(type) && method.getName().startsWith("execute")) {
+                long[] statements = CURRENT_REQUEST.get();
+                if (statements != null) {
+                    statements[0]++;
+                }
+            }
+            return wrapResult(method, result);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object wrapResult(Method method, Object result) {
+        Class<?> returnType = method.getReturnType();
+        if (result != null && returnType.isInterface()
+                && (returnType == Connection.class || Statement.class.isAssignableFrom(returnType))) {
+            return proxy((Class<Object>) returnType, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.DemoApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end load test of /api/workspace/**: starts the application against an embedded
+ * PostgreSQL (or -Dloadtest.jdbc-url), seeds users with projects, pages, tabs and encrypted tab
+ * data through the API, then runs closed-loop virtual users issuing a weighted mix of workspace
+ * reads, tab data reads, autosaves (encrypted merge patches), tab reorders and tab switches.
+ *
+ * Reports p50/p90/p99 latency, throughput, errors and SQL statements per request for each
+ * endpoint, on stdout and as JSON (loadtest.result, default target/loadtest-result.json).
+ *
+ * mvn -Ploadtest test-compile exec:exec@loadtest -Dloadtest.jvmArgs="-Dloadtest.users=100 -Dloadtest.duration-seconds=60"
+ */
+public class WorkspaceLoadTest {
+
+    private static final String PASSWORD = "LoadTest-Passw0rd";
+
+    private static final String READ_WORKSPACE = "GET /api/workspace/data";
+    private static final String READ_TAB = "GET /api/workspace/tabs/{tabId}/data/decrypt";
+    private static final String AUTOSAVE = "PATCH /api/workspace/tabs/{tabId}/data/encrypted";
+    private static final String REORDER = "PUT /api/workspace/pages/{pageId}/tabs/reorder";
+    private static final String SWITCH_TAB = "PUT /api/workspace/tabs/{tabId}/active";
+    private static final List<String> OPERATIONS = List.of(READ_WORKSPACE, READ_TAB, AUTOSAVE, REORDER, SWITCH_TAB);
+
+    // Settings (system properties)
+    private final int users = Integer.getInteger("loadtest.users", 50);
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", users);
+    private final int projects = Integer.getInteger("loadtest.projects", 2);
+    private final int pages = Integer.getInteger("loadtest.pages", 3);
+    private final int tabs = Integer.getInteger("loadtest.tabs", 4);
+    private final int fields = Integer.getInteger("loadtest.fields", 50);
+    private final int depth = Integer.getInteger("loadtest.depth", 3);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 30);
+    private final long thinkMs = Long.getLong("loadtest.think-ms", 0L);
+    // Weights of READ_WORKSPACE, READ_TAB, AUTOSAVE, REORDER, SWITCH_TAB
+    private final int[] mix = Arrays.stream(System.getProperty("loadtest.mix", "20,20,45,5,10").split(","))
+        .mapToInt(weight -> Integer.parseInt(weight.trim())).toArray();
+    private final Path resultFile = Path.of(System.getProperty("loadtest.result", "target/loadtest-result.json"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .executor(Executors.newFixedThreadPool(8, runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-http");
+            thread.setDaemon(true);
+            return thread;
+        }))
+        .build();
+    private String baseUrl;
+
+    private record Workspace(String token, List<String> tabIds, Map<String, List<String>> tabsByPage) {
+    }
+
+    private static final class Samples {
+        private long[] latencies = new long[1024];
+        private int count;
+        private final LongAdder errors = new LongAdder();
+
+        synchronized void add(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int status = 1;
+        try {
+            new WorkspaceLoadTest().run();
+            status = 0;
+        } finally {
+            // Embedded database and application threads would otherwise keep the JVM alive
+            System.exit(status);
+        }
+    }
+
+    private void run() throws Exception {
+        if (mix.length != OPERATIONS.size()) {
+            throw new IllegalArgumentException("loadtest.mix needs " + OPERATIONS.size() + " weights");
+        }
+        EmbeddedPostgres embedded = null;
+        Map<String, Object> properties = new HashMap<>();
+        String jdbcUrl = System.getProperty("loadtest.jdbc-url");
+        if (jdbcUrl == null) {
+            embedded = EmbeddedPostgres.builder().start();
+            jdbcUrl = embedded.getJdbcUrl("postgres", "postgres");
+        }
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", System.getProperty("loadtest.jdbc-user", "postgres"));
+        properties.put("spring.datasource.password", System.getProperty("loadtest.jdbc-password", ""));
+        properties.put("spring.datasource.hikari.maximum-pool-size", Integer.getInteger("loadtest.pool-size", 10));
+        properties.put("spring.jpa.hibernate.ddl-auto", "update");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("server.port", "0");
+        properties.put("logging.level.root", "WARN");
+
+        SpringApplication application = new SpringApplication(DemoApplication.class);
+        application.setDefaultProperties(properties);
+        try (ConfigurableApplicationContext context = application.run()) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port;
+            String threads = context.getEnvironment().getProperty("spring.threads.virtual.enabled", "false");
+            System.out.printf("Application on port %d (java %s, virtual threads %s)%n",
+                port, Runtime.version().feature(), threads);
+
+            long start = System.nanoTime();
+            List<Workspace> workspaces = seed();
+            System.out.printf("Seeded %d users x %d projects x %d pages x %d tabs in %.1f s%n",
+                users, projects, pages, tabs, (System.nanoTime() - start) / 1e9);
+
+            Map<String, Samples> samples = drive(workspaces);
+            report(samples, threads);
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    // ==================== SEEDING ====================
+
+    private List<Workspace> seed() throws Exception {
+        ExecutorService seeders = Executors.newFixedThreadPool(Math.min(users, 16));
+        try {
+            List<Future<Workspace>> futures = new ArrayList<>();
+            for (int u = 0; u < users; u++) {
+                int user = u;
+                futures.add(seeders.submit(() -> seedUser(user)));
+            }
+            List<Workspace> workspaces = new ArrayList<>();
+            for (Future<Workspace> future : futures) {
+                workspaces.add(future.get());
+            }
+            return workspaces;
+        } finally {
+            seeders.shutdown();
+        }
+    }
+
+    private Workspace seedUser(int user) throws Exception {
+        String email = "loadtest-" + user + "-" + UUID.randomUUID() + "@example.com";
+        send("POST", "/api/users/register", null, Map.of("email", email, "username", "loadtest" + user,
+            "password", PASSWORD, "confirmPassword", PASSWORD), true);
+        String token = send("POST", "/api/users/login", null, Map.of("email", email, "password", PASSWORD), true)
+            .get("token").asText();
+
+        List<String> tabIds = new ArrayList<>();
+        Map<String, List<String>> tabsByPage = new LinkedHashMap<>();
+        for (int p = 0; p < projects; p++) {
+            String projectId = send("POST", "/api/workspace/projects", token, Map.of("name", "Project " + p), true)
+                .get("id").asText();
+            for (int g = 0; g < pages; g++) {
+                String pageId = send("POST", "/api/workspace/projects/" + projectId + "/pages", token,
+                    Map.of("name", "Page " + g), true).get("id").asText();
+                List<String> pageTabs = new ArrayList<>();
+                for (int t = 0; t < tabs; t++) {
+                    String tabId = send("POST", "/api/workspace/pages/" + pageId + "/tabs", token,
+                        Map.of("name", "Tab " + t, "tabType", "snow_load"), true).get("id").asText();
+                    send("PUT", "/api/workspace/tabs/" + tabId + "/data/replace/encrypted", token,
+                        Map.of("data", payload(fields, depth, 0), "userPassword", PASSWORD), true);
+                    pageTabs.add(tabId);
+                    tabIds.add(tabId);
+                }
+                tabsByPage.put(pageId, pageTabs);
+            }
+        }
+        return new Workspace(token, tabIds, tabsByPage);
+    }
+
+    private static Map<String, Object> payload(int fields, int depth, int level) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < fields; i++) {
+            data.put("field" + i, i % 2 == 0 ? (Object) (i * 1.25) : "value " + i);
+        }
+        if (level + 1 < depth) {
+            data.put("section" + level, payload(fields, depth, level + 1));
+        }
+        return data;
+    }
+
+    // ==================== TRAFFIC ====================
+
+    private Map<String, Samples> drive(List<Workspace> workspaces) throws Exception {
+        Map<String, Samples> samples = new ConcurrentHashMap<>();
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean running = new AtomicBoolean(true);
+        int totalWeight = Arrays.stream(mix).sum();
+
+        ExecutorService virtualUsers = Executors.newFixedThreadPool(concurrency);
+        for (int c = 0; c < concurrency; c++) {
+            Workspace workspace = workspaces.get(c % workspaces.size());
+            virtualUsers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    int pick = random.nextInt(totalWeight);
+                    int operation = 0;
+                    while (pick >= mix[operation]) {
+                        pick -= mix[operation++];
+                    }
+                    String name = OPERATIONS.get(operation);
+                    long start = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = execute(name, workspace, random);
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    long elapsed = System.nanoTime() - start;
+                    if (measuring.get()) {
+                        Samples operationSamples = samples.computeIfAbsent(name, key -> new Samples());
+                        operationSamples.add(elapsed);
+                        if (!ok) {
+                            operationSamples.errors.increment();
+                        }
+                    }
+                    if (thinkMs > 0) {
+                        try {
+                            Thread.sleep(thinkMs);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            });
+        }
+
+        System.out.printf("Warming up for %d s with %d virtual users%n", warmupSeconds, concurrency);
+        Thread.sleep(warmupSeconds * 1000L);
+        StatementCountingConfig.reset();
+        measuring.set(true);
+        System.out.printf("Measuring for %d s%n", durationSeconds);
+        Thread.sleep(durationSeconds * 1000L);
+        measuring.set(false);
+        running.set(false);
+        virtualUsers.shutdown();
+        virtualUsers.awaitTermination(60, TimeUnit.SECONDS);
+        return samples;
+    }
+
+    private boolean execute(String operation, Workspace workspace, ThreadLocalRandom random) throws Exception {
+        String tabId = workspace.tabIds().get(random.nextInt(workspace.tabIds().size()));
+        switch (operation) {
+            case READ_WORKSPACE:
+                return send("GET", "/api/workspace/data", workspace.token(), null, false) != null;
+            case READ_TAB:
+                return send("GET", "/api/workspace/tabs/" + tabId + "/data/decrypt?userPassword="
+                    + URLEncoder.encode(PASSWORD, StandardCharsets.UTF_8), workspace.token(), null, false) != null;
+            case AUTOSAVE:
+                // A typical edit: one value in one section
+                Map<String, Object> patch = Map.of("section0", Map.of("field" + random.nextInt(fields), random.nextDouble()));
+                return send("PATCH", "/api/workspace/tabs/" + tabId + "/data/encrypted", workspace.token(),
+                    Map.of("data", patch, "userPassword", PASSWORD), false) != null;
+            case REORDER:
+                List<String> pageIds = new ArrayList<>(workspace.tabsByPage().keySet());
+                String pageId = pageIds.get(random.nextInt(pageIds.size()));
+                List<String> order = new ArrayList<>(workspace.tabsByPage().get(pageId));
+                Collections.shuffle(order, random);
+                return send("PUT", "/api/workspace/pages/" + pageId + "/tabs/reorder", workspace.token(),
+                    Map.of("tabIds", order), false) != null;
+            case SWITCH_TAB:
+                return send("PUT", "/api/workspace/tabs/" + tabId + "/active", workspace.token(), null, false) != null;
+            default:
+                throw new IllegalArgumentException(operation);
+        }
+    }
+
+    /**
+     * Send a request; returns the parsed body, or null (or an exception when required) on a non-2xx status
+     */
+    private JsonNode send(String method, String path, String token, Object body, boolean required) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(60))
+            .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (body != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<byte[]> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            if (required) {
+                throw new IllegalStateException(method + " " + path + " -> HTTP " + response.statusCode() + ": "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+            }
+            return null;
+        }
+        boolean json = response.headers().firstValue("Content-Type").orElse("").contains("json");
+        return json && response.body().length > 0 ? objectMapper.readTree(response.body()) : objectMapper.nullNode();
+    }
+
+    // ==================== REPORT ====================
+
+    private void report(Map<String, Samples> samples, String virtualThreads) throws Exception {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        System.out.printf("%n%-52s %8s %7s %9s %9s %9s %9s %9s %8s%n",
+            "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "sql/req");
+        long total = 0;
+        for (String operation : OPERATIONS) {
+            Samples operationSamples = samples.get(operation);
+            if (operationSamples == null) {
+                continue;
+            }
+            long[] latencies = operationSamples.sorted();
+            total += latencies.length;
+            LongAdder statements = StatementCountingConfig.STATEMENTS.get(operation);
+            LongAdder requests = StatementCountingConfig.REQUESTS.get(operation);
+            double statementsPerRequest = statements == null || requests.sum() == 0
+                ? Double.NaN : (double) statements.sum() / requests.sum();
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", operation);
+            row.put("requests", latencies.length);
+            row.put("errors", operationSamples.errors.sum());
+            row.put("throughputPerSecond", (double) latencies.length / durationSeconds);
+            row.put("p50Ms", percentile(latencies, 0.50));
+            row.put("p90Ms", percentile(latencies, 0.90));
+            row.put("p99Ms", percentile(latencies, 0.99));
+            row.put("maxMs", latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+            row.put("sqlStatementsPerRequest", statementsPerRequest);
+            endpoints.add(row);
+
+            System.out.printf("%-52s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %8.2f%n", operation, latencies.length,
+                operationSamples.errors.sum(), row.get("throughputPerSecond"), row.get("p50Ms"), row.get("p90Ms"),
+                row.get("p99Ms"), row.get("maxMs"), statementsPerRequest);
+        }
+        System.out.printf("%-52s %8d %7s %9.1f%n", "total", total, "", (double) total / durationSeconds);
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("javaVersion", Runtime.version().feature());
+        settings.put("virtualThreads", Boolean.parseBoolean(virtualThreads));
+        settings.put("users", users);
+        settings.put("concurrency", concurrency);
+        settings.put("projects", projects);
+        settings.put("pages", pages);
+        settings.put("tabs", tabs);
+        settings.put("fields", fields);
+        settings.put("depth", depth);
+        settings.put("mix", mix);
+        settings.put("warmupSeconds", warmupSeconds);
+        settings.put("durationSeconds", durationSeconds);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("settings", settings);
+        result.put("endpoints", endpoints);
+        if (resultFile.getParent() != null) {
+            Files.createDirectories(resultFile.getParent());
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(resultFile.toFile(), result);
+        System.out.println("Results written to " + resultFile.toAbsolutePath());
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.config;
+
+import com.example.demo.util.BulkheadDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Put the connection bulkhead in front of the pooled DataSource; sized to the Hikari pool so
+     * a permit always means a free connection
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.bulkhead.enabled", havingValue = "true")
+    public static BeanPostProcessor dataSourceBulkhead(Environment environment) {
+        int maxConcurrent = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        int maxWaiting = environment.getProperty("app.datasource.bulkhead.max-waiting", Integer.class, 500);
+        long acquireTimeoutMs = environment.getProperty("app.datasource.bulkhead.acquire-timeout-ms", Long.class, 10000L);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                    return new BulkheadDataSource(dataSource, maxConcurrent, maxWaiting, acquireTimeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.config;
+
+import com.example.demo.util.RequestMetricsInterceptor;
+import com.example.demo.util.SqlStatementCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Per-operation latency and SQL statement counts for the API controllers
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestMetricsInterceptor(meterRegistry)).addPathPatterns("/api/**");
+    }
+
+    /**
+     * Let Hibernate report each statement it prepares to the per-request counter and the current span
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounter(ObjectProvider<Tracer> tracer) {
+        SqlStatementCounter counter = new SqlStatementCounter(tracer.getIfAvailable(() -> Tracer.NOOP));
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+    }
+}
@@ -1,6 +1,12 @@
 package com.example.demo.config;
 
+import com.example.demo.service.CryptoMetrics;
 import com.example.demo.util.JwtFilter;
+import com.example.demo.util.TimedPasswordEncoder;
+import jakarta.servlet.DispatcherType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -23,16 +29,19 @@ import java.util.Arrays;
 @Configuration
 public class SecurityConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
+
     private final JwtFilter jwtFilter;
 
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     public SecurityConfig(JwtFilter jwtFilter) {
         this.jwtFilter = jwtFilter;
     }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        System.out.println("=== CONFIGURING SPRING SECURITY ===");
-        
         http
           // 1) turn off CSRF, form login, and HTTP Basic
           .csrf().disable()
@@ -42,6 +51,9 @@ public class SecurityConfig {
 
           // 2) define which endpoints are open
           .authorizeHttpRequests(auth -> auth
+            // streamed responses finish on an async dispatch of a request that was already authorized
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
             // allow POST to register & login (with or without trailing "/")
             .requestMatchers(HttpMethod.POST,
               "/api/users/register",
@@ -54,9 +66,16 @@ public class SecurityConfig {
             .requestMatchers(HttpMethod.GET,
               "/api/sediment-types", "/api/sediment-types/**",
               "/api/snow-load-values", "/api/snow-load-values/**",
-              "/api/wind-load-values", "/api/wind-load-values/**"
+              "/api/wind-load-values", "/api/wind-load-values/**",
+              "/api/site-class"
             ).permitAll()
 
+            // reference data reload checks its own admin token
+            .requestMatchers(HttpMethod.POST, "/api/reference-data/reload").permitAll()
+            .requestMatchers(HttpMethod.GET, "/api/site-class/grid/check").permitAll()
+            // seismic hazard takes a signed-in user or the Flask sidecar's service token, checked in the controller
+            .requestMatchers(HttpMethod.GET, "/api/seismic-hazard").permitAll()
+
             // allow API key management endpoints (these require password verification)
             .requestMatchers(
               "/api/user/*/api-key",
@@ -79,8 +98,11 @@ public class SecurityConfig {
             // allow Spring Boot's error dispatch
             .requestMatchers("/error", "/error/**").permitAll()
 
-            // allow actuator endpoints for health checks
-            .requestMatchers("/actuator/**").permitAll()
+            // allow actuator health checks
+            .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+
+            // metrics and prometheus are only open on the management port, which is not published
+            .requestMatchers(request -> managementPort > 0 && request.getLocalPort() == managementPort).permitAll()
 
             // everything else needs authentication
             .anyRequest().authenticated()
@@ -92,10 +114,8 @@ public class SecurityConfig {
           // 4) add custom access denied handler for debugging
           .exceptionHandling(exceptions -> exceptions
             .accessDeniedHandler((request, response, accessDeniedException) -> {
-              System.out.println("=== ACCESS DENIED ===");
-              System.out.println("Request URI: " + request.getRequestURI());
-              System.out.println("Request method: " + request.getMethod());
-              System.out.println("Access denied exception: " + accessDeniedException.getMessage());
+              logger.debug("Access denied: {} {} ({})", request.getMethod(), request.getRequestURI(),
+                  accessDeniedException.getMessage());
               response.setStatus(403);
               response.getWriter().write("Access denied: " + accessDeniedException.getMessage());
             })
@@ -108,7 +128,7 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
         configuration.setAllowCredentials(true);
         
@@ -123,9 +143,9 @@ public class SecurityConfig {
         return cfg.getAuthenticationManager();
     }
 
-    // bcrypt encoder
+    // bcrypt encoder, timed as crypto.operation{target=password}
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(CryptoMetrics cryptoMetrics) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), cryptoMetrics);
     }
 }
@@ -0,0 +1,48 @@
+package com.example.demo.config;
+
+import com.example.demo.util.JsonLinesSpanExporter;
+import com.example.demo.util.TracingAspect;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.tracing.Tracer;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Service, repository and crypto spans inside sampled requests
+     */
+    @Bean
+    @ConditionalOnProperty(name = "management.tracing.enabled", havingValue = "true")
+    public TracingAspect tracingAspect(Tracer tracer) {
+        return new TracingAspect(tracer);
+    }
+
+    /**
+     * JSON-lines file export when app.tracing.file is set; the OTLP collector exporter is configured
+     * by Spring Boot from management.otlp.tracing.endpoint
+     */
+    @Bean
+    @ConditionalOnProperty(name = "management.tracing.enabled", havingValue = "true")
+    public SpanExporter fileSpanExporter(@Value("${app.tracing.file:}") String file, ObjectMapper objectMapper)
+            throws IOException {
+        return file.isBlank() ? SpanExporter.composite() : new JsonLinesSpanExporter(Path.of(file), objectMapper);
+    }
+
+    /**
+     * With tracing disabled (the default) Spring Boot only drops the exporters; also stop recording spans
+     */
+    @Bean
+    @ConditionalOnProperty(name = "management.tracing.enabled", havingValue = "false", matchIfMissing = true)
+    public Sampler tracingDisabledSampler() {
+        return Sampler.alwaysOff();
+    }
+}
@@ -5,6 +5,8 @@ import com.example.demo.model.UserApiKey;
 import com.example.demo.repository.UserApiKeyRepository;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.service.ApiKeyEncryptionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +23,8 @@ import java.util.Optional;
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 public class ApiKeyController {
 
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyController.class);
+
     @Autowired
     private UserApiKeyRepository userApiKeyRepository;
 
@@ -107,7 +111,7 @@ public class ApiKeyController {
             }
 
         } catch (Exception e) {
-            System.err.println("Error storing API key: " + e.getMessage());
+            logger.error("Error storing API key: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Failed to store API key. Please try again.");
         }
@@ -161,7 +165,7 @@ public class ApiKeyController {
             ));
 
         } catch (Exception e) {
-            System.err.println("Error retrieving API key: " + e.getMessage());
+            logger.error("Error retrieving API key: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Failed to retrieve API key. Please try again.");
         }
@@ -204,7 +208,7 @@ public class ApiKeyController {
             ));
 
         } catch (Exception e) {
-            System.err.println("Error retrieving API key: " + e.getMessage());
+            logger.error("Error retrieving API key: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Failed to retrieve API key. Please try again.");
         }
@@ -247,7 +251,7 @@ public class ApiKeyController {
             ));
 
         } catch (Exception e) {
-            System.err.println("Error deleting API key: " + e.getMessage());
+            logger.error("Error deleting API key: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Failed to delete API key. Please try again.");
         }
@@ -276,7 +280,7 @@ public class ApiKeyController {
             return ResponseEntity.ok(Map.of("hasStoredKey", false));
 
         } catch (Exception e) {
-            System.err.println("Error checking API key status: " + e.getMessage());
+            logger.error("Error checking API key status: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Failed to check API key status.");
         }
@@ -0,0 +1,77 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.DesignValuesService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/design-values")
+public class DesignValuesController {
+
+    @Autowired
+    private DesignValuesService designValuesService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Snow, wind, soil table and seismic values for a location in one call.
+     * Body: { city?, address?, latitude?, longitude?, apiKey? } - POST so the API key stays out of URLs and logs.
+     */
+    @PostMapping
+    public ResponseEntity<?> getDesignValues(@RequestBody Map<String, Object> payload) {
+        try {
+            String city = (String) payload.get("city");
+            String address = (String) payload.get("address");
+            Double latitude = payload.get("latitude") instanceof Number n ? n.doubleValue() : null;
+            Double longitude = payload.get("longitude") instanceof Number n ? n.doubleValue() : null;
+            String apiKey = (String) payload.get("apiKey");
+
+            return ResponseEntity.ok(designValuesService.getDesignValues(city, address, latitude, longitude, apiKey));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Snow, wind and site class values for many sites, streamed back as NDJSON (one object per line,
+     * in completion order, each with the site's index in the request).
+     * Body: { sites: [{ id?, city?, address?, latitude?, longitude? }] }
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<StreamingResponseBody> getBatchDesignValues(@RequestBody Map<String, Object> payload)
+            throws JsonProcessingException {
+        // Typed as StreamingResponseBody so MVC streams it; errors are written as the usual JSON body
+        List<?> sites = payload.get("sites") instanceof List<?> list ? list : null;
+        try {
+            designValuesService.validateBatch(sites);
+        } catch (RuntimeException e) {
+            byte[] error = objectMapper.writeValueAsBytes(Map.of("error", e.getMessage()));
+            return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> out.write(error));
+        }
+
+        StreamingResponseBody body = out -> designValuesService.evaluateBatch(sites, result -> {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+            out.flush();
+        });
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+}
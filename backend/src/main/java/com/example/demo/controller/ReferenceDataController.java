@@ -0,0 +1,43 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.ReferenceDataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reference-data")
+public class ReferenceDataController {
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Value("${app.reference-data.reload-token:}")
+    private String reloadToken;
+
+    /**
+     * Re-read the snow, wind and sediment tables after they were edited in the database.
+     * Requires the X-Admin-Token header to match app.reference-data.reload-token; disabled when no token is configured.
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<?> reload(@RequestHeader(value = "X-Admin-Token", required = false) String adminToken) {
+        if (reloadToken == null || reloadToken.isBlank() || adminToken == null
+                || !MessageDigest.isEqual(reloadToken.getBytes(StandardCharsets.UTF_8), adminToken.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "Reference data reload is not allowed"));
+        }
+        try {
+            Map<String, Object> etags = referenceDataService.reload();
+            return ResponseEntity.ok(Map.of("message", "Reference data reloaded", "etags", etags));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+}
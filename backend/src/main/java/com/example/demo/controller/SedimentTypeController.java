@@ -1,20 +1,19 @@
 package com.example.demo.controller;
 
-import com.example.demo.model.SedimentType;
-import com.example.demo.repository.SedimentTypeRepository;
+import com.example.demo.service.ReferenceDataService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/sediment-types")
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 public class SedimentTypeController {
     @Autowired
-    private SedimentTypeRepository sedimentTypeRepository;
+    private ReferenceDataService referenceDataService;
 
     @GetMapping
-    public List<SedimentType> getAllSedimentTypes() {
-        return sedimentTypeRepository.findAll();
+    public ResponseEntity<byte[]> getAllSedimentTypes(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return referenceDataService.toResponse(referenceDataService.getSedimentTypes(), ifNoneMatch);
     }
 } 
\ No newline at end of file
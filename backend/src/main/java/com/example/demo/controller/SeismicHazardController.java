@@ -0,0 +1,56 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.SeismicHazardService;
+import com.example.demo.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/seismic-hazard")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class SeismicHazardController {
+
+    @Autowired
+    private SeismicHazardService seismicHazardService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Value("${app.seismic.hazard-token:}")
+    private String serviceToken;
+
+    /**
+     * NBC2020 sa_site and sa_x450 for a WGS84 coordinate and site class (A-E), served from the hazard cache.
+     * A miss calls NRCan and stores the values, so callers must be signed in or send the sidecar's
+     * X-Service-Token (app.seismic.hazard-token).
+     */
+    @GetMapping
+    public ResponseEntity<?> getSeismicHazard(HttpServletRequest request,
+                                              @RequestParam("lat") double latitude, @RequestParam("lon") double longitude,
+                                              @RequestParam("siteClass") String siteClass,
+                                              @RequestHeader(value = "X-Service-Token", required = false) String token) {
+        if (jwtUtil.getClaimsFromRequest(request) == null && !isServiceToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of("error", "Authentication required"));
+        }
+        try {
+            return ResponseEntity.ok(seismicHazardService.getHazard(latitude, longitude, siteClass));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private boolean isServiceToken(String token) {
+        return serviceToken != null && !serviceToken.isBlank() && token != null
+            && MessageDigest.isEqual(serviceToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
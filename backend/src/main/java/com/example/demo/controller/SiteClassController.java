@@ -0,0 +1,61 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.SiteClassService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/site-class")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class SiteClassController {
+
+    @Autowired
+    private SiteClassService siteClassService;
+
+    @Value("${app.site-class.grid-check-token:}")
+    private String gridCheckToken;
+
+    /**
+     * Site class and matching sediment type for a WGS84 coordinate (plus the averaged map colour
+     * when the point is classified per pixel)
+     */
+    @GetMapping
+    public ResponseEntity<?> getSiteClass(@RequestParam("lat") double latitude, @RequestParam("lon") double longitude) {
+        try {
+            return ResponseEntity.ok(siteClassService.classify(latitude, longitude));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * How often the precomputed grid disagrees with per-pixel classification, over random pixels
+     * (every pixel when samples is 0). Requires X-Admin-Token to match app.site-class.grid-check-token.
+     */
+    @GetMapping("/grid/check")
+    public ResponseEntity<?> checkGrid(@RequestParam(value = "samples", defaultValue = "100000") int samples,
+                                       @RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        if (gridCheckToken == null || gridCheckToken.isBlank() || token == null
+                || !MessageDigest.isEqual(gridCheckToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "Site class grid check is not allowed"));
+        }
+        try {
+            return ResponseEntity.ok(siteClassService.checkGrid(samples));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+}
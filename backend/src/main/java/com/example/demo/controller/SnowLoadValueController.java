@@ -1,14 +1,22 @@
 package com.example.demo.controller;
 
 import com.example.demo.model.SnowLoadValue;
-import com.example.demo.repository.SnowLoadValueRepository;
+import com.example.demo.service.CityIndex;
+import com.example.demo.service.ReferenceDataService;
+import com.example.demo.service.ReferenceDataSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/snow-load-values")
@@ -16,10 +24,41 @@ import java.util.List;
 public class SnowLoadValueController {
 
     @Autowired
-    private SnowLoadValueRepository snowLoadValueRepository;
+    private ReferenceDataService referenceDataService;
 
     @GetMapping
-    public List<SnowLoadValue> getAllSnowLoadValues() {
-        return snowLoadValueRepository.findAll();
+    public ResponseEntity<byte[]> getAllSnowLoadValues(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return referenceDataService.toResponse(referenceDataService.getSnowLoadValues(), ifNoneMatch);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Cities matching a query: by word prefix ("van" finds Vancouver and North Vancouver),
+     * falling back to typo-tolerant matching when nothing starts with it
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchSnowLoadValues(@RequestParam("q") String query,
+                                                  @RequestParam(value = "limit", defaultValue = "10") int limit,
+                                                  @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        ReferenceDataSnapshot<SnowLoadValue> snapshot = referenceDataService.getSnowLoadValues();
+        CityIndex<SnowLoadValue> index = snapshot.cityIndex();
+        int boundedLimit = Math.max(1, Math.min(limit, 50));
+        List<SnowLoadValue> matches = index.prefixSearch(query, boundedLimit);
+        if (matches.isEmpty()) {
+            matches = index.fuzzySearch(query, boundedLimit);
+        }
+        return referenceDataService.toResponse(snapshot, ifNoneMatch, matches);
+    }
+
+    /**
+     * Design values for one city; case, accents and punctuation are ignored
+     */
+    @GetMapping("/{city}")
+    public ResponseEntity<?> getSnowLoadValue(@PathVariable String city,
+                                              @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        ReferenceDataSnapshot<SnowLoadValue> snapshot = referenceDataService.getSnowLoadValues();
+        return snapshot.cityIndex().find(city)
+            .<ResponseEntity<?>>map(value -> referenceDataService.toResponse(snapshot, ifNoneMatch, value))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "City not found: " + city)));
+    }
+}
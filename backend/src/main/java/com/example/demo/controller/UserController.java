@@ -2,7 +2,10 @@ package com.example.demo.controller;
 
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.UserPrincipalCache;
 import com.example.demo.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +21,8 @@ import java.util.regex.Pattern;
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 public class UserController {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+
     @Autowired
     private UserRepository userRepository;
 
@@ -27,6 +32,9 @@ public class UserController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
     // at least 8 chars, one uppercase and one digit
     private static final Pattern PASSWORD_PATTERN =
         Pattern.compile("^(?=.*[A-Z])(?=.*[0-9]).{8,}$");
@@ -71,7 +79,7 @@ public class UserController {
 
             return ResponseEntity.ok("User registered successfully.");
         } catch (Exception e) {
-            System.err.println("Registration error: " + e.getMessage());
+            logger.error("Registration error: {}", e.getMessage());
             return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Registration failed. Please try again.");
@@ -97,7 +105,7 @@ public class UserController {
                     String token    = jwtUtil.generateToken(email);
                     String username = user.getUsername();
                     
-                    System.out.println("Login successful for user: " + email);
+                    logger.debug("Login successful for user: {}", email);
                     
                     return ResponseEntity.ok(Map.of(
                       "token",    token,
@@ -105,17 +113,17 @@ public class UserController {
                       "userId",   user.getId()
                     ));
                 } else {
-                    System.out.println("Invalid password for user: " + email);
+                    logger.debug("Invalid password for user: {}", email);
                 }
             } else {
-                System.out.println("User not found: " + email);
+                logger.debug("User not found: {}", email);
             }
 
             return ResponseEntity
                 .status(HttpStatus.UNAUTHORIZED)
                 .body("Invalid email or password.");
         } catch (Exception e) {
-            System.err.println("Login error: " + e.getMessage());
+            logger.error("Login error: {}", e.getMessage());
             return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Login failed. Please try again.");
@@ -140,7 +148,7 @@ public class UserController {
             ));
             
         } catch (Exception e) {
-            System.err.println("Profile fetch error: " + e.getMessage());
+            logger.error("Profile fetch error: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Failed to fetch profile. Please try again.");
         }
@@ -176,8 +184,9 @@ public class UserController {
             // Update the username (usernames can be duplicated, so no duplicate check needed)
             user.setUsername(trimmedUsername);
             userRepository.save(user);
+            userPrincipalCache.evict(user.getEmail());
             
-            System.out.println("Profile updated for user ID: " + userId + ", new username: " + trimmedUsername);
+            logger.debug("Profile updated for user ID: {}, new username: {}", userId, trimmedUsername);
             
             return ResponseEntity.ok(Map.of(
                 "message", "Profile updated successfully",
@@ -185,7 +194,7 @@ public class UserController {
             ));
             
         } catch (Exception e) {
-            System.err.println("Profile update error: " + e.getMessage());
+            logger.error("Profile update error: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Failed to update profile. Please try again.");
         }
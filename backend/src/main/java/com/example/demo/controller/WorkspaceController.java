@@ -2,12 +2,20 @@ package com.example.demo.controller;
 
 import com.example.demo.model.*;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.TabDataVersionConflictException;
+import com.example.demo.service.UserPrincipalCache;
 import com.example.demo.service.WorkspaceDataService;
 import com.example.demo.util.JwtUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.*;
@@ -25,23 +33,75 @@ public class WorkspaceController {
     
     @Autowired
     private UserRepository userRepository;
+    
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
 
     private Long getUserIdFromRequest(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            if (jwtUtil.validateToken(token)) {
-                // Extract email from JWT token
-                String email = jwtUtil.getUsernameFromToken(token);
-                
-                // Look up user ID from database using email
-                return userRepository.findByEmail(email)
-                    .map(User::getId)
-                    .orElseThrow(() -> new RuntimeException("User not found for email: " + email));
-            }
+        // Claims were already verified by JwtFilter for this request
+        Claims claims = jwtUtil.getClaimsFromRequest(request);
+        if (claims != null) {
+            // Resolve user ID from the email subject, cached for the lifetime of the token
+            return userPrincipalCache.resolveUserId(claims.getSubject(), claims.getExpiration());
         }
         throw new RuntimeException("Invalid authorization token");
     }
+    
+    /**
+     * Tab data version named by an If-Match / If-None-Match header ("3", W/"3" or 3); null if absent or "*"
+     */
+    private Long parseVersionTag(String header) {
+        if (header == null) {
+            return null;
+        }
+        String tag = header.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        if (tag.isEmpty() || "*".equals(tag)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid tab data version: " + header);
+        }
+    }
+    
+    private boolean isNotModified(String ifNoneMatch, Long version) {
+        return version != null && version.equals(parseVersionTag(ifNoneMatch));
+    }
+    
+    /**
+     * 409 carrying the current version plus the current values of the sections the rejected write
+     * touched (every section for a full replace), so the client can rebase instead of reloading everything
+     */
+    @SuppressWarnings("unchecked")
+    private ResponseEntity<?> tabDataConflict(HttpServletRequest request, UUID tabId, Map<String, Object> payload,
+                                              boolean fullReplace) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Tab data was modified by another session");
+        try {
+            Long userId = getUserIdFromRequest(request);
+            Collection<String> sectionKeys = fullReplace ? null : ((Map<String, Object>) payload.get("data")).keySet();
+            TabData current = workspaceDataService.getTabDataSectionsForMerging(
+                tabId, userId, sectionKeys, (String) payload.get("userPassword"));
+            body.put("currentVersion", current.getVersion());
+            body.put("data", current.getData());
+            if (current.getVersion() != null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .eTag(String.valueOf(current.getVersion()))
+                    .body(body);
+            }
+        } catch (RuntimeException e) {
+            // Still a conflict; without the current state the client falls back to a full reload
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
 
     // ==================== WORKSPACE OPERATIONS ====================
     
@@ -49,6 +109,7 @@ public class WorkspaceController {
     public ResponseEntity<?> getAllWorkspaceData(HttpServletRequest request) {
         try {
             Long userId = getUserIdFromRequest(request);
+            
             Map<String, Object> data = workspaceDataService.getAllWorkspaceData(userId);
             return ResponseEntity.ok(data);
         } catch (Exception e) {
@@ -57,6 +118,29 @@ public class WorkspaceController {
         }
     }
     
+    /**
+     * GET /data?stream=true: write the tree batch by batch instead of materializing it
+     */
+    @GetMapping(value = "/data", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamWorkspaceData(HttpServletRequest request)
+            throws JsonProcessingException {
+        // Typed as StreamingResponseBody so MVC streams it; errors are written as the usual JSON body
+        Long userId;
+        try {
+            userId = getUserIdFromRequest(request);
+        } catch (Exception e) {
+            byte[] error = objectMapper.writeValueAsBytes(Map.of("error", e.getMessage()));
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> out.write(error));
+        }
+        
+        StreamingResponseBody body = out -> workspaceDataService.streamWorkspaceData(userId, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+    
     @PostMapping("/initialize")
     public ResponseEntity<?> initializeWorkspace(HttpServletRequest request) {
         try {
@@ -340,11 +424,8 @@ public class WorkspaceController {
     @PutMapping("/tabs/{tabId}/active")
     public ResponseEntity<?> updateActiveTab(HttpServletRequest request, @PathVariable UUID tabId) {
         try {
-            String email = jwtUtil.getUsernameFromToken(request.getHeader("Authorization").substring(7));
-            User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-            
-            workspaceDataService.updateActiveTab(tabId, user.getId());
+            Long userId = getUserIdFromRequest(request);
+            workspaceDataService.updateActiveTab(tabId, userId);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -415,11 +496,18 @@ public class WorkspaceController {
     // ==================== TAB DATA OPERATIONS ====================
     
     @GetMapping("/tabs/{tabId}/data")
-    public ResponseEntity<?> getTabData(HttpServletRequest request, @PathVariable UUID tabId) {
+    public ResponseEntity<?> getTabData(HttpServletRequest request, @PathVariable UUID tabId,
+                                        @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
             Long userId = getUserIdFromRequest(request);
             TabData tabData = workspaceDataService.getTabData(tabId, userId);
-            return ResponseEntity.ok(tabData);
+            if (tabData.getVersion() == null) {
+                return ResponseEntity.ok(tabData);
+            }
+            if (isNotModified(ifNoneMatch, tabData.getVersion())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(String.valueOf(tabData.getVersion())).build();
+            }
+            return ResponseEntity.ok().eTag(String.valueOf(tabData.getVersion())).body(tabData);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                 .body(Map.of("error", e.getMessage()));
@@ -434,14 +522,12 @@ public class WorkspaceController {
                                             @PathVariable UUID tabId,
                                             @RequestBody Map<String, Object> requestBody) {
         try {
-            String email = jwtUtil.getUsernameFromToken(request.getHeader("Authorization").substring(7));
-            User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            Long userId = getUserIdFromRequest(request);
 
             @SuppressWarnings("unchecked")
             Map<String, Object> newData = (Map<String, Object>) requestBody.getOrDefault("data", new HashMap<>());
             
-            TabData updatedData = workspaceDataService.replaceTabData(tabId, user.getId(), newData);
+            TabData updatedData = workspaceDataService.replaceTabData(tabId, userId, newData);
             return ResponseEntity.ok(updatedData);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -479,11 +565,24 @@ public class WorkspaceController {
     @GetMapping("/tabs/{tabId}/data/decrypt")
     public ResponseEntity<?> getTabDataForMerging(HttpServletRequest request, 
                                                   @PathVariable UUID tabId,
-                                                  @RequestParam String userPassword) {
+                                                  @RequestParam String userPassword,
+                                                  @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
             Long userId = getUserIdFromRequest(request);
+            
+            // Check the version before decrypting anything
+            if (ifNoneMatch != null) {
+                Long version = workspaceDataService.getTabDataVersion(tabId, userId);
+                if (isNotModified(ifNoneMatch, version)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(String.valueOf(version)).build();
+                }
+            }
+            
             TabData tabData = workspaceDataService.getTabDataForMerging(tabId, userId, userPassword);
-            return ResponseEntity.ok(tabData);
+            if (tabData.getVersion() == null) {
+                return ResponseEntity.ok(tabData);
+            }
+            return ResponseEntity.ok().eTag(String.valueOf(tabData.getVersion())).body(tabData);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                 .body(Map.of("error", e.getMessage()));
@@ -496,7 +595,8 @@ public class WorkspaceController {
     @PutMapping("/tabs/{tabId}/data/replace/encrypted")
     public ResponseEntity<?> replaceTabDataEncrypted(HttpServletRequest request,
                                                      @PathVariable UUID tabId,
-                                                     @RequestBody Map<String, Object> requestBody) {
+                                                     @RequestBody Map<String, Object> requestBody,
+                                                     @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         try {
             Long userId = getUserIdFromRequest(request);
             
@@ -509,8 +609,11 @@ public class WorkspaceController {
                     .body(Map.of("error", "User password is required for encryption"));
             }
             
-            TabData updatedData = workspaceDataService.replaceTabDataEncrypted(tabId, userId, newData, userPassword);
-            return ResponseEntity.ok(updatedData);
+            TabData updatedData = workspaceDataService.replaceTabDataEncrypted(
+                tabId, userId, newData, userPassword, parseVersionTag(ifMatch));
+            return ResponseEntity.ok().eTag(String.valueOf(updatedData.getVersion())).body(updatedData);
+        } catch (TabDataVersionConflictException | ObjectOptimisticLockingFailureException e) {
+            return tabDataConflict(request, tabId, requestBody, true);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                 .body(Map.of("error", e.getMessage()));
@@ -523,7 +626,8 @@ public class WorkspaceController {
     @PutMapping("/tabs/{tabId}/data/encrypted")
     public ResponseEntity<?> updateTabDataEncrypted(HttpServletRequest request, 
                                                    @PathVariable UUID tabId, 
-                                                   @RequestBody Map<String, Object> payload) {
+                                                   @RequestBody Map<String, Object> payload,
+                                                   @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         try {
             Long userId = getUserIdFromRequest(request);
             
@@ -541,8 +645,51 @@ public class WorkspaceController {
                     .body(Map.of("error", "User password is required for encryption"));
             }
             
-            TabData tabData = workspaceDataService.updateTabDataEncrypted(tabId, userId, deltaData, userPassword);
-            return ResponseEntity.ok(tabData);
+            TabData tabData = workspaceDataService.updateTabDataEncrypted(
+                tabId, userId, deltaData, userPassword, parseVersionTag(ifMatch));
+            return ResponseEntity.ok().eTag(String.valueOf(tabData.getVersion())).body(tabData);
+        } catch (TabDataVersionConflictException | ObjectOptimisticLockingFailureException e) {
+            return tabDataConflict(request, tabId, payload, false);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * JSON merge patch (RFC 7396) of encrypted tab data: {"data": patch, "userPassword": ...}.
+     * A null value removes the key; only the top-level sections the patch names are re-encrypted.
+     */
+    @PatchMapping("/tabs/{tabId}/data/encrypted")
+    public ResponseEntity<?> patchTabDataEncrypted(HttpServletRequest request, 
+                                                  @PathVariable UUID tabId, 
+                                                  @RequestBody Map<String, Object> payload,
+                                                  @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        try {
+            Long userId = getUserIdFromRequest(request);
+            
+            @SuppressWarnings("unchecked")
+            Map<String, Object> patch = (Map<String, Object>) payload.get("data");
+            String userPassword = (String) payload.get("userPassword");
+            
+            if (patch == null) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Patch data is required"));
+            }
+            
+            if (userPassword == null || userPassword.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("error", "User password is required for encryption"));
+            }
+            
+            TabData tabData = workspaceDataService.patchTabDataEncrypted(
+                tabId, userId, patch, userPassword, parseVersionTag(ifMatch));
+            return ResponseEntity.ok().eTag(String.valueOf(tabData.getVersion())).body(tabData);
+        } catch (TabDataVersionConflictException | ObjectOptimisticLockingFailureException e) {
+            return tabDataConflict(request, tabId, payload, false);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                 .body(Map.of("error", e.getMessage()));
@@ -564,14 +711,12 @@ public class WorkspaceController {
                     .body(Map.of("error", "User password is required"));
             }
             
-            // Find user and validate password
-            User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-            
+            // Validate password; on success this also unlocks the encryption session
             boolean isValid = workspaceDataService.validateUserPassword(userId, userPassword);
             
             return ResponseEntity.ok(Map.of(
                 "valid", isValid,
+                "unlocked", isValid,
                 "message", isValid ? "Password validated successfully" : "Invalid password"
             ));
         } catch (RuntimeException e) {
@@ -583,6 +728,18 @@ public class WorkspaceController {
         }
     }
     
+    @PostMapping("/lock")
+    public ResponseEntity<?> lockEncryptionSession(HttpServletRequest request) {
+        try {
+            Long userId = getUserIdFromRequest(request);
+            workspaceDataService.lockEncryptionSession(userId);
+            return ResponseEntity.ok(Map.of("message", "Encryption session locked"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     // ==================== ACTIVE STATE MANAGEMENT ====================
     
     @PutMapping("/projects/{projectId}/active")
@@ -0,0 +1,62 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One row per user pointing at the active project, page and tab, so the last active state is
+ * a primary-key lookup. Pointers are cleared by the database when their target is deleted.
+ */
+@Entity
+@Table(name = "user_active_state")
+@Data
+@EqualsAndHashCode(exclude = {"user", "activeProject", "activePage", "activeTab"})
+public class ActiveState {
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "active_project_id")
+    private UUID activeProjectId;
+    
+    @Column(name = "active_page_id")
+    private UUID activePageId;
+    
+    @Column(name = "active_tab_id")
+    private UUID activeTabId;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "active_project_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private Project activeProject;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "active_page_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private Page activePage;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "active_tab_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private Tab activeTab;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
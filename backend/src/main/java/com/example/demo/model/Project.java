@@ -11,7 +11,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "projects")
+@Table(name = "projects", indexes = @Index(name = "idx_projects_user_order", columnList = "user_id, display_order, id"))
 @Data
 @EqualsAndHashCode(exclude = {"pages"})
 public class Project {
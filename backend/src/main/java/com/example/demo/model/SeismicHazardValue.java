@@ -0,0 +1,39 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * NBC2020 spectral accelerations (Sa(0.2), Sa(0.5), Sa(1.0), Sa(2.0), Sa(5.0), Sa(10.0), PGA at
+ * 2% in 50 years) fetched from the NRCan hazard service for one grid point and site designation
+ */
+@Entity
+@Table(name = "seismic_hazard_cache")
+@Data
+public class SeismicHazardValue {
+    // "<siteClass>:<latKey>:<lonKey>", see SeismicHazardService
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    @Column(name = "site_class", nullable = false, length = 8)
+    private String siteClass;
+
+    @Column(name = "latitude", nullable = false)
+    private Double latitude;
+
+    @Column(name = "longitude", nullable = false)
+    private Double longitude;
+
+    @Column(name = "sa_values", nullable = false)
+    private double[] saValues;
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        fetchedAt = LocalDateTime.now();
+    }
+}
@@ -6,6 +6,7 @@ import lombok.EqualsAndHashCode;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -25,15 +26,32 @@ public class TabData {
     private Map<String, Object> data;
     
     // Encryption support fields
+    // Legacy format: Base64 text of IV + ciphertext, rewritten to encryptedBlob on the next save
     @Column(name = "encrypted_data", columnDefinition = "text")
     private String encryptedData;
     
+    // Binary format: version byte + IV + ciphertext (see TabDataEncryptionService)
+    @Column(name = "encrypted_blob", columnDefinition = "bytea")
+    @JsonIgnore
+    private byte[] encryptedBlob;
+    
     @Column(name = "data_salt")
     private String dataSalt;
     
     @Column(name = "is_encrypted", nullable = false)
     private Boolean isEncrypted = false;
     
+    // When true the document lives in tab_data_sections, one encrypted row per top-level key
+    // (nullable so the column can be added to existing rows; null means false)
+    @Column(name = "is_sectioned")
+    private Boolean isSectioned = false;
+    
+    // Optimistic lock, exposed to clients as the ETag of the tab data endpoints.
+    // Defaulted in DDL so rows that predate the column start at 0 instead of null.
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0")
+    private Long version;
+    
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
@@ -0,0 +1,58 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One independently encrypted top-level section of a tab's data document
+ * (e.g. "snowDefaults" or "results"), so a small edit only re-encrypts its own section
+ */
+@Entity
+@Table(name = "tab_data_sections",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"tab_id", "section_key"}))
+@Data
+@EqualsAndHashCode(exclude = {"tabData"})
+public class TabDataSection {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+    
+    @Column(name = "tab_id", nullable = false)
+    private UUID tabId;
+    
+    @Column(name = "section_key", nullable = false)
+    private String sectionKey;
+    
+    // Same binary format as TabData.encryptedBlob, holding {sectionKey: value}
+    @Column(name = "encrypted_blob", nullable = false, columnDefinition = "bytea")
+    private byte[] encryptedBlob;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tab_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private TabData tabData;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.ActiveState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+/**
+ * Each activate* statement checks ownership, moves the is_active flags of the target and of its
+ * ancestors among their siblings (the tree still shows each project's remembered page and each
+ * page's remembered tab, in step with the cursor) and upserts the user's active-state row, all
+ * as one round trip. They return 0 when the target does not exist or belongs to someone else.
+ */
+@Repository
+public interface ActiveStateRepository extends JpaRepository<ActiveState, Long> {
+    
+    String UPSERT_ACTIVE_STATE =
+        "INSERT INTO user_active_state (user_id, active_project_id, active_page_id, active_tab_id, updated_at) " +
+        "SELECT :userId, project_id, page_id, tab_id, now() FROM target " +
+        "ON CONFLICT (user_id) DO UPDATE SET active_project_id = EXCLUDED.active_project_id, " +
+        "active_page_id = EXCLUDED.active_page_id, active_tab_id = EXCLUDED.active_tab_id, updated_at = EXCLUDED.updated_at";
+    
+    String PAGE_FLAGS =
+        ", page_flags AS (" +
+        "  UPDATE pages SET is_active = (pages.id = target.page_id), updated_at = now() FROM target" +
+        "  WHERE pages.project_id = target.project_id AND pages.is_active <> (pages.id = target.page_id)" +
+        ")";
+    
+    String PROJECT_FLAGS =
+        ", project_flags AS (" +
+        "  UPDATE projects SET is_active = (projects.id = target.project_id), updated_at = now() FROM target" +
+        "  WHERE projects.user_id = :userId AND projects.is_active <> (projects.id = target.project_id)" +
+        ")";
+    
+    @Modifying(flushAutomatically = true)
+    @Query(value =
+        "WITH target AS (" +
+        "  SELECT t.id AS tab_id, t.page_id, p.project_id FROM tabs t" +
+        "  JOIN pages p ON p.id = t.page_id JOIN projects pr ON pr.id = p.project_id" +
+        "  WHERE t.id = :tabId AND pr.user_id = :userId" +
+        "), tab_flags AS (" +
+        "  UPDATE tabs SET is_active = (tabs.id = target.tab_id), updated_at = now() FROM target" +
+        "  WHERE tabs.page_id = target.page_id AND tabs.is_active <> (tabs.id = target.tab_id)" +
+        ")" + PAGE_FLAGS + PROJECT_FLAGS + " " + UPSERT_ACTIVE_STATE, nativeQuery = true)
+    int activateTab(@Param("userId") Long userId, @Param("tabId") UUID tabId);
+    
+    @Modifying(flushAutomatically = true)
+    @Query(value =
+        "WITH target AS (" +
+        "  SELECT p.id AS page_id, p.project_id," +
+        "    (SELECT t.id FROM tabs t WHERE t.page_id = p.id AND t.is_active ORDER BY t.display_order, t.id LIMIT 1) AS tab_id" +
+        "  FROM pages p JOIN projects pr ON pr.id = p.project_id" +
+        "  WHERE p.id = :pageId AND pr.user_id = :userId" +
+        ")" + PAGE_FLAGS + PROJECT_FLAGS + " " + UPSERT_ACTIVE_STATE, nativeQuery = true)
+    int activatePage(@Param("userId") Long userId, @Param("pageId") UUID pageId);
+    
+    @Modifying(flushAutomatically = true)
+    @Query(value =
+        "WITH target AS (" +
+        "  SELECT pr.id AS project_id, pg.id AS page_id," +
+        "    (SELECT t.id FROM tabs t WHERE t.page_id = pg.id AND t.is_active ORDER BY t.display_order, t.id LIMIT 1) AS tab_id" +
+        "  FROM projects pr LEFT JOIN LATERAL (" +
+        "    SELECT p.id FROM pages p WHERE p.project_id = pr.id AND p.is_active ORDER BY p.display_order, p.id LIMIT 1" +
+        "  ) pg ON true" +
+        "  WHERE pr.id = :projectId AND pr.user_id = :userId" +
+        ")" + PROJECT_FLAGS + " " + UPSERT_ACTIVE_STATE, nativeQuery = true)
+    int activateProject(@Param("userId") Long userId, @Param("projectId") UUID projectId);
+    
+    /**
+     * Store a cursor derived from the legacy is_active flags unless one was written meanwhile
+     */
+    @Modifying
+    @Query(value =
+        "INSERT INTO user_active_state (user_id, active_project_id, active_page_id, active_tab_id, updated_at) " +
+        "VALUES (:userId, :projectId, :pageId, :tabId, now()) ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("projectId") UUID projectId,
+                       @Param("pageId") UUID pageId, @Param("tabId") UUID tabId);
+}
@@ -0,0 +1,174 @@
+package com.example.demo.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Set-based display order reads and updates for projects, pages and tabs.
+ *
+ * Display orders are sparse rank keys (see DisplayOrderService), so these queries work on
+ * a whole sibling set with one statement instead of a find and save per row.
+ */
+@Repository
+public class DisplayOrderRepository {
+
+    /**
+     * Sibling tables, the column that scopes them and the table that column points at; fixed
+     * here so no caller-supplied text ever reaches the SQL string
+     */
+    public enum Siblings {
+        PROJECTS("projects", "user_id", "registers"),
+        PAGES("pages", "project_id", "projects"),
+        TABS("tabs", "page_id", "pages");
+
+        private final String table;
+        private final String parentColumn;
+        private final String parentTable;
+
+        Siblings(String table, String parentColumn, String parentTable) {
+            this.table = table;
+            this.parentColumn = parentColumn;
+            this.parentTable = parentTable;
+        }
+    }
+
+    public record SiblingOrder(UUID id, int displayOrder) {
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Lock the parent row until the transaction ends, so rank reads and writes for its children
+     * are serialized. FOR NO KEY UPDATE conflicts with itself but not with the KEY SHARE lock
+     * that inserting a child takes for its foreign key, so creating children is not blocked.
+     */
+    public void lockParent(Siblings siblings, Object parentId) {
+        entityManager.createNativeQuery(
+                "SELECT id FROM " + siblings.parentTable + " WHERE id = ?1 FOR NO KEY UPDATE")
+            .setParameter(1, parentId)
+            .getResultList();
+    }
+
+    /**
+     * All children of the parent in display order (ties broken by id, as everywhere else)
+     */
+    public List<SiblingOrder> findOrders(Siblings siblings, Object parentId) {
+        Query query = entityManager.createNativeQuery(
+            "SELECT id, display_order FROM " + siblings.table
+                + " WHERE " + siblings.parentColumn + " = ?1 ORDER BY display_order, id");
+        query.setParameter(1, parentId);
+
+        List<SiblingOrder> orders = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            UUID id = columns[0] instanceof UUID ? (UUID) columns[0] : UUID.fromString(columns[0].toString());
+            orders.add(new SiblingOrder(id, ((Number) columns[1]).intValue()));
+        }
+        return orders;
+    }
+
+    /**
+     * Display orders of the children at positions offset .. offset + limit - 1
+     */
+    public List<Integer> findOrdersAt(Siblings siblings, Object parentId, int offset, int limit) {
+        Query query = entityManager.createNativeQuery(
+            "SELECT display_order FROM " + siblings.table
+                + " WHERE " + siblings.parentColumn + " = ?1 ORDER BY display_order, id OFFSET ?2 LIMIT ?3");
+        query.setParameter(1, parentId);
+        query.setParameter(2, offset);
+        query.setParameter(3, limit);
+
+        List<Integer> orders = new ArrayList<>();
+        for (Object order : query.getResultList()) {
+            orders.add(((Number) order).intValue());
+        }
+        return orders;
+    }
+
+    /**
+     * Largest display order under the parent, or null when it has no children
+     */
+    public Integer findMaxOrder(Siblings siblings, Object parentId) {
+        Object max = entityManager.createNativeQuery(
+                "SELECT MAX(display_order) FROM " + siblings.table + " WHERE " + siblings.parentColumn + " = ?1")
+            .setParameter(1, parentId)
+            .getSingleResult();
+        return max == null ? null : ((Number) max).intValue();
+    }
+
+    /**
+     * Set display_order for each id in one UPDATE ... FROM (VALUES ...), only for rows under the
+     * given parent. Returns the number of rows updated; fewer than ids.size() means some id was
+     * not a child of that parent.
+     */
+    public int updateDisplayOrder(Siblings siblings, Object parentId, List<UUID> ids, List<Integer> orders) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder()
+            .append("UPDATE ").append(siblings.table).append(" AS t")
+            .append(" SET display_order = v.display_order, updated_at = now()")
+            .append(" FROM (VALUES ");
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(CAST(?").append(i + 1).append(" AS uuid), ").append(orders.get(i).intValue()).append(")");
+        }
+        int parentPosition = ids.size() + 1;
+        sql.append(") AS v(id, display_order)")
+            .append(" WHERE t.id = v.id AND t.").append(siblings.parentColumn).append(" = ?").append(parentPosition);
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < ids.size(); i++) {
+            query.setParameter(i + 1, ids.get(i).toString());
+        }
+        query.setParameter(parentPosition, parentId);
+        return query.executeUpdate();
+    }
+
+    /**
+     * Respace all children of the parent to gap, 2 * gap, 3 * gap ... keeping their current order.
+     * Rows already at their target are not rewritten.
+     */
+    public int rebalance(Siblings siblings, Object parentId, int gap) {
+        String sql = "UPDATE " + siblings.table + " AS t"
+            + " SET display_order = r.rank * ?1, updated_at = now()"
+            + " FROM (SELECT id, row_number() OVER (ORDER BY display_order, id) AS rank"
+            + "       FROM " + siblings.table + " WHERE " + siblings.parentColumn + " = ?2) AS r"
+            + " WHERE t.id = r.id AND t.display_order <> r.rank * ?1";
+        return entityManager.createNativeQuery(sql)
+            .setParameter(1, gap)
+            .setParameter(2, parentId)
+            .executeUpdate();
+    }
+
+    /**
+     * Parents whose children have run out of room: two adjacent siblings closer than minGap
+     * (including ties), or an order beyond maxOrder
+     */
+    public List<Object> findCrowdedParents(Siblings siblings, int minGap, int maxOrder, int limit) {
+        String sql = "SELECT DISTINCT parent FROM ("
+            + " SELECT " + siblings.parentColumn + " AS parent, display_order,"
+            + "  display_order - lag(display_order) OVER (PARTITION BY " + siblings.parentColumn
+            + "   ORDER BY display_order, id) AS gap"
+            + " FROM " + siblings.table + ") AS g"
+            + " WHERE g.gap < ?1 OR abs(g.display_order) > ?2"
+            + " LIMIT ?3";
+        @SuppressWarnings("unchecked")
+        List<Object> parents = entityManager.createNativeQuery(sql)
+            .setParameter(1, minGap)
+            .setParameter(2, maxOrder)
+            .setParameter(3, limit)
+            .getResultList();
+        return parents;
+    }
+}
@@ -14,12 +14,6 @@ public interface PageRepository extends JpaRepository<Page, UUID> {
     
     List<Page> findByProjectIdOrderByDisplayOrderAsc(UUID projectId);
     
-    @Query("SELECT p FROM Page p WHERE p.projectId = :projectId AND p.displayOrder >= :displayOrder ORDER BY p.displayOrder ASC")
-    List<Page> findByProjectIdAndDisplayOrderGreaterThanEqualOrderByDisplayOrderAsc(@Param("projectId") UUID projectId, @Param("displayOrder") Integer displayOrder);
-    
-    @Query("SELECT COALESCE(MAX(p.displayOrder), -1) FROM Page p WHERE p.projectId = :projectId")
-    Integer findMaxDisplayOrderByProjectId(@Param("projectId") UUID projectId);
-    
     boolean existsByProjectIdAndName(UUID projectId, String name);
     
     @Query("SELECT COUNT(p) FROM Page p WHERE p.projectId = :projectId")
@@ -28,6 +22,12 @@ public interface PageRepository extends JpaRepository<Page, UUID> {
     @Query("SELECT p FROM Page p JOIN p.project pr WHERE pr.userId = :userId")
     List<Page> findAllByUserId(@Param("userId") Long userId);
     
+    @Query("SELECT p FROM Page p JOIN p.project pr WHERE pr.userId = :userId ORDER BY p.displayOrder ASC")
+    List<Page> findAllByUserIdOrderByDisplayOrderAsc(@Param("userId") Long userId);
+    
+    @Query("SELECT p FROM Page p WHERE p.projectId IN :projectIds ORDER BY p.displayOrder ASC")
+    List<Page> findByProjectIdInOrderByDisplayOrderAsc(@Param("projectIds") List<UUID> projectIds);
+    
     @Query("SELECT p FROM Page p WHERE p.projectId = :projectId AND p.isActive = true")
     Page findByProjectIdAndIsActiveTrue(@Param("projectId") UUID projectId);
 } 
\ No newline at end of file
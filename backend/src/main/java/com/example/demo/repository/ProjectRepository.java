@@ -1,6 +1,7 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Project;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,17 +15,18 @@ public interface ProjectRepository extends JpaRepository<Project, UUID> {
     
     List<Project> findByUserIdOrderByDisplayOrderAsc(Long userId);
     
-    @Query("SELECT p FROM Project p WHERE p.userId = :userId AND p.displayOrder >= :displayOrder ORDER BY p.displayOrder ASC")
-    List<Project> findByUserIdAndDisplayOrderGreaterThanEqualOrderByDisplayOrderAsc(@Param("userId") Long userId, @Param("displayOrder") Integer displayOrder);
-    
-    @Query("SELECT COALESCE(MAX(p.displayOrder), -1) FROM Project p WHERE p.userId = :userId")
-    Integer findMaxDisplayOrderByUserId(@Param("userId") Long userId);
-    
     boolean existsByUserIdAndName(Long userId, String name);
     
     @Query("SELECT COUNT(p) FROM Project p WHERE p.userId = :userId")
     Long countByUserId(@Param("userId") Long userId);
     
+    @Query("SELECT p FROM Project p WHERE p.userId = :userId ORDER BY p.displayOrder ASC, p.id ASC")
+    List<Project> findFirstBatchByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    // Keyset cursor over (displayOrder, id); the displayOrder >= bound lets idx_projects_user_order start the range scan at the cursor instead of an OFFSET
+    @Query("SELECT p FROM Project p WHERE p.userId = :userId AND p.displayOrder >= :afterOrder AND (p.displayOrder > :afterOrder OR p.id > :afterId) ORDER BY p.displayOrder ASC, p.id ASC")
+    List<Project> findNextBatchByUserId(@Param("userId") Long userId, @Param("afterOrder") Integer afterOrder, @Param("afterId") UUID afterId, Pageable pageable);
+    
     @Query("SELECT p FROM Project p WHERE p.userId = :userId AND p.isActive = true")
     Project findByUserIdAndIsActiveTrue(@Param("userId") Long userId);
 } 
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.SeismicHazardValue;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SeismicHazardValueRepository extends JpaRepository<SeismicHazardValue, String> {
+}
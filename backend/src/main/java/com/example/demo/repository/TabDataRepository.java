@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -19,4 +20,7 @@ public interface TabDataRepository extends JpaRepository<TabData, UUID> {
     List<TabData> findByTabIdIn(@Param("tabIds") List<UUID> tabIds);
     
     boolean existsByTabId(UUID tabId);
+    
+    @Query("SELECT td.version FROM TabData td WHERE td.tabId = :tabId")
+    Optional<Long> findVersionByTabId(@Param("tabId") UUID tabId);
 } 
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.TabDataSection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TabDataSectionRepository extends JpaRepository<TabDataSection, UUID> {
+    
+    List<TabDataSection> findByTabId(UUID tabId);
+    
+    @Query("SELECT s FROM TabDataSection s WHERE s.tabId = :tabId AND s.sectionKey IN :sectionKeys")
+    List<TabDataSection> findByTabIdAndSectionKeyIn(@Param("tabId") UUID tabId, @Param("sectionKeys") Collection<String> sectionKeys);
+    
+    @Modifying
+    @Query("DELETE FROM TabDataSection s WHERE s.tabId = :tabId AND s.sectionKey IN :sectionKeys")
+    void deleteByTabIdAndSectionKeyIn(@Param("tabId") UUID tabId, @Param("sectionKeys") Collection<String> sectionKeys);
+    
+    @Modifying
+    @Query("DELETE FROM TabDataSection s WHERE s.tabId = :tabId")
+    void deleteByTabId(@Param("tabId") UUID tabId);
+}
@@ -14,12 +14,6 @@ public interface TabRepository extends JpaRepository<Tab, UUID> {
     
     List<Tab> findByPageIdOrderByDisplayOrderAsc(UUID pageId);
     
-    @Query("SELECT t FROM Tab t WHERE t.pageId = :pageId AND t.displayOrder >= :displayOrder ORDER BY t.displayOrder ASC")
-    List<Tab> findByPageIdAndDisplayOrderGreaterThanEqualOrderByDisplayOrderAsc(@Param("pageId") UUID pageId, @Param("displayOrder") Integer displayOrder);
-    
-    @Query("SELECT COALESCE(MAX(t.displayOrder), -1) FROM Tab t WHERE t.pageId = :pageId")
-    Integer findMaxDisplayOrderByPageId(@Param("pageId") UUID pageId);
-    
     boolean existsByPageIdAndName(UUID pageId, String name);
     
     @Query("SELECT COUNT(t) FROM Tab t WHERE t.pageId = :pageId")
@@ -28,6 +22,14 @@ public interface TabRepository extends JpaRepository<Tab, UUID> {
     @Query("SELECT t FROM Tab t JOIN t.page p JOIN p.project pr WHERE pr.userId = :userId")
     List<Tab> findAllByUserId(@Param("userId") Long userId);
     
+    // Fetch-joins tabData: the inverse side of a @OneToOne cannot be lazy, so without the
+    // join Hibernate would issue one extra select per tab when the tree is serialized
+    @Query("SELECT t FROM Tab t LEFT JOIN FETCH t.tabData JOIN t.page p JOIN p.project pr WHERE pr.userId = :userId ORDER BY t.displayOrder ASC")
+    List<Tab> findAllByUserIdWithTabDataOrderByDisplayOrderAsc(@Param("userId") Long userId);
+    
+    @Query("SELECT t FROM Tab t LEFT JOIN FETCH t.tabData WHERE t.pageId IN :pageIds ORDER BY t.displayOrder ASC")
+    List<Tab> findByPageIdInWithTabDataOrderByDisplayOrderAsc(@Param("pageIds") List<UUID> pageIds);
+    
     @Query("SELECT t FROM Tab t WHERE t.pageId = :pageId AND t.isActive = true")
     List<Tab> findActiveTabsByPageId(@Param("pageId") UUID pageId);
 } 
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.example.demo.service;
 
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -17,11 +20,25 @@ public class ApiKeyEncryptionService {
     @Value("${app.encryption.secret:default-secret-key-change-in-production}")
     private String applicationSecret;
     
+    @Autowired
+    private CryptoMetrics cryptoMetrics;
+    
+    private Timer deriveKeyTimer;
+    private Timer encryptTimer;
+    private Timer decryptTimer;
+    
     private static final String ALGORITHM = "AES/GCM/NoPadding";
     private static final int GCM_IV_LENGTH = 12;
     private static final int GCM_TAG_LENGTH = 16;
     private static final int KEY_LENGTH = 32; // 256 bits
     
+    @PostConstruct
+    void initMetrics() {
+        deriveKeyTimer = cryptoMetrics.timer("api-key", "derive-key");
+        encryptTimer = cryptoMetrics.timer("api-key", "encrypt");
+        decryptTimer = cryptoMetrics.timer("api-key", "decrypt");
+    }
+    
     /**
      * Encrypt API key using user password and application secret
      */
@@ -29,6 +46,8 @@ public class ApiKeyEncryptionService {
         // Generate encryption key from user password + app secret + salt
         byte[] derivedKey = deriveKey(userPassword, userSalt, applicationSecret);
         
+        long start = System.nanoTime();
+        
         // Generate random IV
         SecureRandom random = new SecureRandom();
         byte[] iv = new byte[GCM_IV_LENGTH];
@@ -51,6 +70,7 @@ public class ApiKeyEncryptionService {
         System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
         
         String result = Base64.getEncoder().encodeToString(combined);
+        CryptoMetrics.record(encryptTimer, start);
         return result;
     }
     
@@ -61,6 +81,8 @@ public class ApiKeyEncryptionService {
         // Generate decryption key
         byte[] derivedKey = deriveKey(userPassword, userSalt, applicationSecret);
         
+        long start = System.nanoTime();
+        
         // Decode from Base64
         byte[] combined = Base64.getDecoder().decode(encryptedKey);
         
@@ -80,6 +102,7 @@ public class ApiKeyEncryptionService {
         
         // Decrypt
         byte[] decrypted = cipher.doFinal(encrypted);
+        CryptoMetrics.record(decryptTimer, start);
         return new String(decrypted);
     }
     
@@ -87,6 +110,8 @@ public class ApiKeyEncryptionService {
      * Derive encryption key from user password, salt, and application secret
      */
     private byte[] deriveKey(String userPassword, String userSalt, String appSecret) throws Exception {
+        long start = System.nanoTime();
+        
         // Combine all components
         String combined = userPassword + userSalt + appSecret;
         
@@ -97,6 +122,7 @@ public class ApiKeyEncryptionService {
         // Return first 32 bytes (256 bits) as raw bytes
         byte[] keyBytes = new byte[KEY_LENGTH];
         System.arraycopy(hash, 0, keyBytes, 0, KEY_LENGTH);
+        CryptoMetrics.record(deriveKeyTimer, start);
         return keyBytes;
     }
     
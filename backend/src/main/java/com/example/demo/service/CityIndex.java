@@ -0,0 +1,248 @@
+package com.example.demo.service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable lookup index over the city names of a reference table.
+ *
+ * Names are folded (accents stripped, lower case, punctuation collapsed to single spaces), so
+ * "Québec", "QUEBEC" and "quebec" are the same key. Every word start of every name goes into one
+ * sorted array, so exact and prefix lookups are binary searches and "van" finds both
+ * "Vancouver" and "North Vancouver". Fuzzy search is a bounded edit-distance scan over the
+ * (small) set of names.
+ */
+public class CityIndex<T> {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{Alnum}]+");
+    private static final int MAX_NAME_WORDS = 5;
+
+    private final List<T> rows;
+    private final String[] names;        // folded name per row
+    private final long[] letterMasks;    // characters present in each folded name (see letterMask)
+    private final String[] suffixes;     // folded name from each word start, sorted
+    private final int[] suffixRows;      // row of each suffix
+    private final int[] exactOrder;      // rows sorted by folded name
+
+    public CityIndex(List<T> rows, Function<T, String> cityOf) {
+        this.rows = List.copyOf(rows);
+        this.names = new String[this.rows.size()];
+        this.letterMasks = new long[this.rows.size()];
+
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            String name = fold(cityOf.apply(this.rows.get(i)));
+            names[i] = name;
+            letterMasks[i] = letterMask(name);
+            for (int start = 0; start < name.length(); start++) {
+                if (start == 0 || name.charAt(start - 1) == ' ') {
+                    entries.add(Map.entry(name.substring(start), i));
+                }
+            }
+        }
+        entries.sort(Map.Entry.<String, Integer>comparingByKey().thenComparing(Map.Entry.comparingByValue()));
+        suffixes = new String[entries.size()];
+        suffixRows = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            suffixes[i] = entries.get(i).getKey();
+            suffixRows[i] = entries.get(i).getValue();
+        }
+
+        exactOrder = new int[names.length];
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> names[i]).thenComparing(i -> i));
+        for (int i = 0; i < order.length; i++) {
+            exactOrder[i] = order[i];
+        }
+    }
+
+    /**
+     * Case-, accent- and punctuation-insensitive key for a city name
+     */
+    public static String fold(String city) {
+        if (city == null) {
+            return "";
+        }
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(city, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * The row whose whole city name folds to the same key, if any (the first one on duplicates)
+     */
+    public Optional<T> find(String city) {
+        String key = fold(city);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+        int low = 0;
+        int high = exactOrder.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names[exactOrder[mid]].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < exactOrder.length && names[exactOrder[low]].equals(key)
+            ? Optional.of(rows.get(exactOrder[low]))
+            : Optional.empty();
+    }
+
+    /**
+     * The city named inside free text such as an address ("1234 Main St, North Vancouver, BC"):
+     * the longest run of whole words that is an indexed name, the later one on ties since
+     * addresses put the city after the street
+     */
+    public Optional<T> findInText(String text) {
+        String[] words = fold(text).split(" ");
+        Optional<T> best = Optional.empty();
+        int bestLength = 0;
+        for (int start = 0; start < words.length; start++) {
+            StringBuilder candidate = new StringBuilder();
+            for (int end = start; end < words.length && end - start < MAX_NAME_WORDS; end++) {
+                if (end > start) {
+                    candidate.append(' ');
+                }
+                candidate.append(words[end]);
+                int length = end - start + 1;
+                if (length >= bestLength) {
+                    Optional<T> match = find(candidate.toString());
+                    if (match.isPresent()) {
+                        best = match;
+                        bestLength = length;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Rows with a word starting with the query; names that start with it come first, then alphabetical
+     */
+    public List<T> prefixSearch(String query, int limit) {
+        String key = fold(query);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int from = Arrays.binarySearch(suffixes, key);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        // Distinct matching rows; bounded by the number of names starting a word with the key
+        Set<Integer> matches = new LinkedHashSet<>();
+        for (int i = from; i < suffixes.length && suffixes[i].startsWith(key); i++) {
+            matches.add(suffixRows[i]);
+        }
+        return matches.stream()
+            .sorted(Comparator.comparing((Integer row) -> !names[row].startsWith(key))
+                .thenComparing(row -> names[row]))
+            .limit(limit)
+            .map(rows::get)
+            .toList();
+    }
+
+    /**
+     * Rows within a small edit distance of the query (as a whole name or as the start of one),
+     * closest first; tolerates typos such as "vancuover" or "kamlops"
+     */
+    public List<T> fuzzySearch(String query, int limit) {
+        String key = fold(query);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int maxDistance = key.length() <= 4 ? 1 : 2;
+        // DP rows shared across names: no name needs more than key length + maxDistance columns
+        int[][] scratch = new int[3][key.length() + maxDistance + 1];
+        long keyMask = letterMask(key);
+        List<int[]> matches = new ArrayList<>();
+        for (int row = 0; row < names.length; row++) {
+            // Each distinct key character missing from the name needs at least one edit
+            if (Long.bitCount(keyMask & ~letterMasks[row]) > maxDistance) {
+                continue;
+            }
+            int distance = fuzzyDistance(key, names[row], maxDistance, scratch);
+            if (distance <= maxDistance) {
+                matches.add(new int[] {distance, row});
+            }
+        }
+        return matches.stream()
+            .sorted(Comparator.comparingInt((int[] match) -> match[0]).thenComparing(match -> names[match[1]]))
+            .limit(limit)
+            .map(match -> rows.get(match[1]))
+            .toList();
+    }
+
+    /**
+     * One bit per letter or digit, plus one shared bit for anything else
+     */
+    private static long letterMask(String name) {
+        long mask = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                mask |= 1L << (c - 'a');
+            } else if (c >= '0' && c <= '9') {
+                mask |= 1L << (26 + c - '0');
+            } else {
+                mask |= 1L << 63;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Optimal string alignment distance from key to the whole name, or to a prefix of it plus one,
+     * whichever is smaller. Only the diagonal band of width 2 * max + 1 is computed and the scan
+     * stops as soon as every cell in a row exceeds max, so most names cost a few dozen steps.
+     * Returns a value above max when the name is not a match.
+     */
+    private static int fuzzyDistance(String key, String name, int max, int[][] scratch) {
+        int n = key.length();
+        int m = Math.min(name.length(), n + max);
+        int unreachable = max + 2;
+
+        int[] previous2 = scratch[0];
+        int[] previous = scratch[1];
+        int[] current = scratch[2];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= max ? j : unreachable;
+        }
+        for (int i = 1; i <= n; i++) {
+            Arrays.fill(current, 0, m + 1, unreachable);
+            current[0] = i <= max ? i : unreachable;
+            int rowMin = current[0];
+            for (int j = Math.max(1, i - max); j <= Math.min(m, i + max); j++) {
+                int cost = key.charAt(i - 1) == name.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && key.charAt(i - 1) == name.charAt(j - 2) && key.charAt(i - 2) == name.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = Math.min(value, unreachable);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return unreachable;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+
+        // previous now holds the distances from the whole key to each prefix of the name
+        int best = name.length() == m ? previous[m] : unreachable;
+        for (int j = Math.max(0, n - max); j <= m && j < name.length(); j++) {
+            best = Math.min(best, previous[j] + 1);
+        }
+        return best;
+    }
+}
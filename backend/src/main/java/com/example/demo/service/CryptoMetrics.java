@@ -0,0 +1,68 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters shared by the encryption services: crypto.operation timers tagged by target
+ * (tab-data, api-key, password) and operation (derive-key, encrypt, decrypt, bcrypt-encode,
+ * bcrypt-matches), plus the size of tab data as it is encrypted and decrypted
+ */
+@Component
+public class CryptoMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary tabDataWritten;
+    private final DistributionSummary tabDataRead;
+
+    public CryptoMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.tabDataWritten = tabDataPayload("write");
+        this.tabDataRead = tabDataPayload("read");
+    }
+
+    public Timer timer(String target, String operation) {
+        return Timer.builder("crypto.operation")
+            .description("Time spent in key derivation, encryption, decryption and password hashing")
+            .tag("target", target)
+            .tag("operation", operation)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * Record the time since startNanos (a System.nanoTime() reading) on timer
+     */
+    public static void record(Timer timer, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Size of a tab's plaintext (after the codec, before encryption) when it is saved
+     */
+    public void recordTabDataWritten(int bytes) {
+        tabDataWritten.record(bytes);
+    }
+
+    /**
+     * Size of a tab's plaintext (codec output) when it is decrypted for reading
+     */
+    public void recordTabDataRead(int bytes) {
+        tabDataRead.record(bytes);
+    }
+
+    private DistributionSummary tabDataPayload(String direction) {
+        return DistributionSummary.builder("tab.data.payload")
+            .description("Tab data plaintext size")
+            .baseUnit("bytes")
+            .tag("direction", direction)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(64.0)
+            .maximumExpectedValue(16.0 * 1024 * 1024)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.service;
+
+import com.example.demo.util.InstancePool;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * JSON compressed with raw DEFLATE. Tab templates repeat the same keys many times,
+ * so they compress well; Jackson streams straight into the deflater without an
+ * intermediate JSON byte array.
+ */
+@Component
+public class DeflateTabDataCodec implements TabDataCodec {
+
+    public static final byte ID = 1;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.encryption.deflate-level:6}")
+    private int level;
+
+    // Deflater/Inflater hold native zlib buffers: reuse them from a bounded pool, reset between
+    // uses, and end() the ones the pool has no room for instead of leaving them to GC
+    private final InstancePool<Deflater> deflaters = new InstancePool<>(() -> new Deflater(level, true), Deflater::end);
+    private final InstancePool<Inflater> inflaters = new InstancePool<>(() -> new Inflater(true), Inflater::end);
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return "deflate";
+    }
+
+    @Override
+    public byte[] encode(Map<String, Object> data) throws IOException {
+        Deflater def = deflaters.take();
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+            try (OutputStream out = new DeflaterOutputStream(buffer, def, 4096)) {
+                objectMapper.writeValue(out, data);
+            }
+            return buffer.toByteArray();
+        } finally {
+            def.reset();
+            deflaters.release(def);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> decode(byte[] bytes) throws IOException {
+        Inflater inf = inflaters.take();
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes), inf, 4096)) {
+            return objectMapper.readValue(in, Map.class);
+        } finally {
+            inf.reset();
+            inflaters.release(inf);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.demo.service;
+
+import com.example.demo.model.SedimentType;
+import com.example.demo.model.SnowLoadValue;
+import com.example.demo.model.WindLoadValue;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Everything a new calculation tab needs for one location in a single call: snow and wind
+ * design values for the city, the sediment (soil) table, and the site class and seismic
+ * hazard values for the address or coordinates.
+ *
+ * The seismic lookup is the only remote one, so it is started first and runs while the
+ * in-memory lookups complete on the calling thread; the response takes as long as the
+ * slowest lookup rather than the sum of all of them.
+ *
+ * Portfolio batches only use the local lookups (city tables and the site class map), so each
+ * site is a few microseconds of CPU work; they are spread over a bounded fork-join pool and
+ * handed back in completion order.
+ */
+@Service
+public class DesignValuesService {
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Autowired
+    private SeismicInfoClient seismicInfoClient;
+
+    @Autowired
+    private SiteClassService siteClassService;
+
+    @Value("${app.design-values.batch-max-sites:1000}")
+    private int batchMaxSites;
+
+    private final ForkJoinPool batchPool;
+
+    /**
+     * Result sink for batch evaluation; an IOException (client gone) stops the batch
+     */
+    @FunctionalInterface
+    public interface BatchResultWriter {
+        void write(Map<String, Object> result) throws IOException;
+    }
+
+    public DesignValuesService(@Value("${app.design-values.batch-parallelism:0}") int batchParallelism) {
+        int parallelism = batchParallelism > 0 ? batchParallelism : Runtime.getRuntime().availableProcessors();
+        this.batchPool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        batchPool.shutdownNow();
+    }
+
+    /**
+     * city, address, latitude/longitude and apiKey are all optional, but a city or a location is required.
+     * A part that cannot be resolved is left null and its reason is reported under "errors".
+     */
+    public Map<String, Object> getDesignValues(String city, String address, Double latitude, Double longitude, String apiKey) {
+        String location = address;
+        if ((location == null || location.isBlank()) && latitude != null && longitude != null) {
+            location = latitude + "," + longitude;
+        }
+        boolean hasCity = city != null && !city.isBlank();
+        boolean hasLocation = location != null && !location.isBlank();
+        if (!hasCity && !hasLocation) {
+            throw new RuntimeException("A city, an address or coordinates are required");
+        }
+
+        ReferenceDataSnapshot<SnowLoadValue> snowLoadValues = referenceDataService.getSnowLoadValues();
+        ReferenceDataSnapshot<WindLoadValue> windLoadValues = referenceDataService.getWindLoadValues();
+        ReferenceDataSnapshot<SedimentType> sedimentTypes = referenceDataService.getSedimentTypes();
+
+        Map<String, Object> errors = new LinkedHashMap<>();
+
+        // Remote lookup first, so it overlaps with everything below
+        CompletableFuture<Map<String, Object>> seismic = null;
+        if (!hasLocation) {
+            errors.put("seismic", "An address or coordinates are required for seismic values");
+        } else if (apiKey == null || apiKey.isBlank()) {
+            errors.put("seismic", "A geocoding API key is required for seismic values");
+        } else {
+            seismic = seismicInfoClient.fetchSeismicInfo(location, apiKey, sedimentTypes.rows());
+        }
+
+        // The city named explicitly, otherwise the one named in the address
+        String cityText = hasCity ? city : location;
+        Optional<SnowLoadValue> snowLoad = hasCity
+            ? snowLoadValues.cityIndex().find(cityText) : snowLoadValues.cityIndex().findInText(cityText);
+        Optional<WindLoadValue> windLoad = hasCity
+            ? windLoadValues.cityIndex().find(cityText) : windLoadValues.cityIndex().findInText(cityText);
+
+        Map<String, Object> seismicInfo = null;
+        if (seismic != null) {
+            try {
+                seismicInfo = seismic.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                errors.put("seismic", cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+            }
+        }
+
+        // No city in the typed address: try the address the geocoder resolved
+        if (!hasCity && seismicInfo != null && seismicInfo.get("address_checked") instanceof String checked) {
+            if (snowLoad.isEmpty()) {
+                snowLoad = snowLoadValues.cityIndex().findInText(checked);
+            }
+            if (windLoad.isEmpty()) {
+                windLoad = windLoadValues.cityIndex().findInText(checked);
+            }
+        }
+        if (snowLoad.isEmpty()) {
+            errors.put("snowLoad", "No snow load values for this location");
+        }
+        if (windLoad.isEmpty()) {
+            errors.put("windLoad", "No wind load values for this location");
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("snowLoad", snowLoad.orElse(null));
+        result.put("windLoad", windLoad.orElse(null));
+        result.put("sedimentTypes", sedimentTypes.rows());
+        result.put("seismic", seismicInfo);
+        result.put("errors", errors);
+        return result;
+    }
+
+    // ==================== BATCH ====================
+
+    /**
+     * Reject a batch before any result is streamed
+     */
+    public void validateBatch(List<?> sites) {
+        if (sites == null) {
+            throw new RuntimeException("sites must be a list of sites");
+        }
+        if (sites.isEmpty()) {
+            throw new RuntimeException("At least one site is required");
+        }
+        if (sites.size() > batchMaxSites) {
+            throw new RuntimeException("A batch can contain at most " + batchMaxSites + " sites");
+        }
+    }
+
+    /**
+     * Evaluate each site { id?, city?, address?, latitude?, longitude? } in parallel and pass the
+     * results to the writer as they complete, each tagged with its index in the request.
+     * Only local data is used: no geocoding and no seismic hazard values.
+     */
+    public void evaluateBatch(List<?> sites, BatchResultWriter writer) throws IOException {
+        validateBatch(sites);
+        ReferenceDataSnapshot<SnowLoadValue> snowLoadValues = referenceDataService.getSnowLoadValues();
+        ReferenceDataSnapshot<WindLoadValue> windLoadValues = referenceDataService.getWindLoadValues();
+
+        CompletionService<Map<String, Object>> completion = new ExecutorCompletionService<>(batchPool);
+        List<Future<Map<String, Object>>> futures = new ArrayList<>(sites.size());
+        for (int i = 0; i < sites.size(); i++) {
+            int index = i;
+            Map<?, ?> site = sites.get(i) instanceof Map<?, ?> map ? map : null;
+            futures.add(completion.submit(() -> evaluateSite(index, site, snowLoadValues, windLoadValues)));
+        }
+
+        try {
+            for (int i = 0; i < sites.size(); i++) {
+                writer.write(completion.take().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch evaluation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Batch evaluation failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            for (Future<Map<String, Object>> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private Map<String, Object> evaluateSite(int index, Map<?, ?> site,
+                                             ReferenceDataSnapshot<SnowLoadValue> snowLoadValues,
+                                             ReferenceDataSnapshot<WindLoadValue> windLoadValues) {
+        Map<String, Object> errors = new LinkedHashMap<>();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("index", index);
+        if (site != null && site.containsKey("id")) {
+            result.put("id", site.get("id"));
+        }
+        if (site == null) {
+            errors.put("site", "Site must be an object");
+            result.put("errors", errors);
+            return result;
+        }
+
+        String city = site.get("city") instanceof String text && !text.isBlank() ? text : null;
+        String address = site.get("address") instanceof String text && !text.isBlank() ? text : null;
+        Double latitude = site.get("latitude") instanceof Number n ? n.doubleValue() : null;
+        Double longitude = site.get("longitude") instanceof Number n ? n.doubleValue() : null;
+
+        Optional<SnowLoadValue> snowLoad = Optional.empty();
+        Optional<WindLoadValue> windLoad = Optional.empty();
+        if (city != null) {
+            snowLoad = snowLoadValues.cityIndex().find(city);
+            windLoad = windLoadValues.cityIndex().find(city);
+        } else if (address != null) {
+            snowLoad = snowLoadValues.cityIndex().findInText(address);
+            windLoad = windLoadValues.cityIndex().findInText(address);
+        }
+        if (snowLoad.isEmpty()) {
+            errors.put("snowLoad", city == null && address == null
+                ? "A city or an address is required for snow load values" : "No snow load values for this location");
+        }
+        if (windLoad.isEmpty()) {
+            errors.put("windLoad", city == null && address == null
+                ? "A city or an address is required for wind load values" : "No wind load values for this location");
+        }
+
+        Map<String, Object> siteClass = null;
+        if (latitude == null || longitude == null) {
+            errors.put("siteClass", "Coordinates are required for the site class");
+        } else {
+            try {
+                siteClass = siteClassService.classify(latitude, longitude);
+            } catch (RuntimeException e) {
+                errors.put("siteClass", e.getMessage());
+            }
+        }
+
+        result.put("snowLoad", snowLoad.orElse(null));
+        result.put("windLoad", windLoad.orElse(null));
+        result.put("siteClass", siteClass);
+        result.put("errors", errors);
+        return result;
+    }
+}
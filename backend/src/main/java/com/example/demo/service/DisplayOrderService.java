@@ -0,0 +1,291 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.DisplayOrderRepository;
+import com.example.demo.repository.DisplayOrderRepository.SiblingOrder;
+import com.example.demo.repository.DisplayOrderRepository.Siblings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Sparse rank keys for the display order of projects, pages and tabs.
+ *
+ * Siblings are spaced GAP apart, so an insert or a move takes the midpoint between its new
+ * neighbours and writes one row, and a delete leaves a hole instead of renumbering everything
+ * after it. When two neighbours run out of room the parent is respaced with one statement,
+ * either inline or by the scheduled rebalancer. Every operation first locks the parent row, so
+ * two requests on the same parent never compute ranks from the same stale read.
+ */
+@Service
+@Transactional
+public class DisplayOrderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DisplayOrderService.class);
+
+    public static final int GAP = 1024;
+
+    // Respace well before Integer overflow; leaves room for ~1M appends after a rebalance
+    private static final int MAX_ORDER = Integer.MAX_VALUE / 2;
+
+    @Autowired
+    private DisplayOrderRepository displayOrderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.workspace.order-rebalance-min-gap:32}")
+    private int rebalanceMinGap;
+
+    @Value("${app.workspace.order-rebalance-batch-size:500}")
+    private int rebalanceBatchSize;
+
+    /**
+     * Display order for a new last child
+     */
+    public int appendOrder(Siblings siblings, Object parentId) {
+        displayOrderRepository.lockParent(siblings, parentId);
+        return nextOrder(siblings, parentId);
+    }
+
+    private int nextOrder(Siblings siblings, Object parentId) {
+        Integer max = displayOrderRepository.findMaxOrder(siblings, parentId);
+        if (max == null) {
+            return GAP;
+        }
+        if (max > MAX_ORDER) {
+            displayOrderRepository.rebalance(siblings, parentId, GAP);
+            max = displayOrderRepository.findMaxOrder(siblings, parentId);
+        }
+        return max + GAP;
+    }
+
+    /**
+     * Display order that places a new child at the given index, between its future neighbours
+     */
+    public int insertOrder(Siblings siblings, Object parentId, int position) {
+        displayOrderRepository.lockParent(siblings, parentId);
+        Long order = orderBetweenNeighbours(siblings, parentId, position);
+        if (order == null) {
+            // Neighbours are adjacent integers; respace the parent once and try again
+            displayOrderRepository.rebalance(siblings, parentId, GAP);
+            order = orderBetweenNeighbours(siblings, parentId, position);
+        }
+        return order.intValue();
+    }
+
+    private Long orderBetweenNeighbours(Siblings siblings, Object parentId, int position) {
+        if (position <= 0) {
+            List<Integer> first = displayOrderRepository.findOrdersAt(siblings, parentId, 0, 1);
+            return first.isEmpty() ? GAP : between(null, first.get(0).longValue());
+        }
+        List<Integer> neighbours = displayOrderRepository.findOrdersAt(siblings, parentId, position - 1, 2);
+        if (neighbours.isEmpty()) {
+            return (long) nextOrder(siblings, parentId);
+        }
+        Long lower = neighbours.get(0).longValue();
+        Long upper = neighbours.size() > 1 ? neighbours.get(1).longValue() : null;
+        return between(lower, upper);
+    }
+
+    /**
+     * Midpoint rank strictly between lower and upper (either may be open), or null if there is no room
+     */
+    private static Long between(Long lower, Long upper) {
+        long rank;
+        if (lower == null) {
+            rank = upper - GAP;
+        } else if (upper == null) {
+            rank = lower + GAP;
+        } else {
+            rank = lower + (upper - lower) / 2;
+            if (rank <= lower || rank >= upper) {
+                return null;
+            }
+        }
+        return Math.abs(rank) > MAX_ORDER ? null : rank;
+    }
+
+    /**
+     * Apply a full drag-and-drop reorder while rewriting as few rows as possible: children already
+     * in the right relative order (a longest increasing run of their current ranks) keep their
+     * ranks, and only the moved ones get new ranks between their neighbours. A single moved item
+     * is a one-row update. Every id must be a child of the parent, which checks ownership of the
+     * whole set at once.
+     */
+    public void reorder(Siblings siblings, Object parentId, List<UUID> ids, String errorMessage) {
+        if (new HashSet<>(ids).size() != ids.size()) {
+            throw new RuntimeException("Duplicate id in reorder request");
+        }
+        displayOrderRepository.lockParent(siblings, parentId);
+
+        long[] ranks = currentRanks(siblings, parentId, ids, errorMessage);
+        long[] target = assignRanks(ranks);
+        if (target == null) {
+            // No room between some neighbours: respace the whole parent once, as insertOrder does,
+            // so unlisted children keep distinct ranks, then place the moved ones again
+            displayOrderRepository.rebalance(siblings, parentId, GAP);
+            ranks = currentRanks(siblings, parentId, ids, errorMessage);
+            target = assignRanks(ranks);
+        }
+        if (target == null) {
+            // Still no room (a run of over GAP moved children): number the list from scratch,
+            // which is only safe when it holds every child
+            if (displayOrderRepository.findOrders(siblings, parentId).size() != ids.size()) {
+                throw new RuntimeException("Reorder request must list every item");
+            }
+            target = new long[ids.size()];
+            for (int i = 0; i < ids.size(); i++) {
+                target[i] = (long) (i + 1) * GAP;
+            }
+        }
+
+        List<UUID> changedIds = new ArrayList<>();
+        List<Integer> changedOrders = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (target[i] != ranks[i]) {
+                changedIds.add(ids.get(i));
+                changedOrders.add((int) target[i]);
+            }
+        }
+        if (displayOrderRepository.updateDisplayOrder(siblings, parentId, changedIds, changedOrders) != changedIds.size()) {
+            throw new RuntimeException(errorMessage);
+        }
+    }
+
+    /**
+     * Current display orders of the given children, in list order; fails if one is not a child of the parent
+     */
+    private long[] currentRanks(Siblings siblings, Object parentId, List<UUID> ids, String errorMessage) {
+        Map<UUID, Integer> current = new HashMap<>();
+        for (SiblingOrder sibling : displayOrderRepository.findOrders(siblings, parentId)) {
+            current.put(sibling.id(), sibling.displayOrder());
+        }
+        long[] ranks = new long[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            Integer rank = current.get(ids.get(i));
+            if (rank == null) {
+                throw new RuntimeException(errorMessage);
+            }
+            ranks[i] = rank;
+        }
+        return ranks;
+    }
+
+    /**
+     * New ranks for items currently ranked as given, keeping the longest strictly increasing
+     * subsequence in place and spreading the rest evenly between their kept neighbours.
+     * Returns null when some run of moved items does not fit.
+     */
+    static long[] assignRanks(long[] ranks) {
+        int n = ranks.length;
+        boolean[] keep = longestIncreasingSubsequence(ranks);
+        long[] target = new long[n];
+
+        int i = 0;
+        while (i < n) {
+            if (keep[i]) {
+                target[i] = ranks[i];
+                i++;
+                continue;
+            }
+            int runStart = i;
+            while (i < n && !keep[i]) {
+                i++;
+            }
+            int runLength = i - runStart;
+            Long lower = runStart > 0 ? target[runStart - 1] : null;
+            Long upper = i < n ? ranks[i] : null;
+
+            for (int j = 0; j < runLength; j++) {
+                long rank;
+                if (lower == null && upper == null) {
+                    rank = (long) (j + 1) * GAP;
+                } else if (upper == null) {
+                    rank = lower + (long) (j + 1) * GAP;
+                } else if (lower == null) {
+                    rank = upper - (long) (runLength - j) * GAP;
+                } else {
+                    long step = (upper - lower) / (runLength + 1);
+                    if (step < 1) {
+                        return null;
+                    }
+                    rank = lower + step * (j + 1);
+                }
+                if (Math.abs(rank) > MAX_ORDER) {
+                    return null;
+                }
+                target[runStart + j] = rank;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Marks one longest strictly increasing subsequence (patience sorting, O(n log n))
+     */
+    private static boolean[] longestIncreasingSubsequence(long[] values) {
+        int n = values.length;
+        int[] tails = new int[n];
+        int[] previous = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] keep = new boolean[n];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            keep[i] = true;
+        }
+        return keep;
+    }
+
+    /**
+     * Respace parents whose children are crowded (gaps below the minimum, ties left by legacy
+     * contiguous orders, or ranks drifting toward overflow) so inserts keep finding room. Each
+     * parent is locked and respaced in its own short transaction, so a request on one parent
+     * waits for that parent only, not for the whole batch.
+     */
+    @Scheduled(fixedDelayString = "${app.workspace.order-rebalance-interval-ms:3600000}",
+               initialDelayString = "${app.workspace.order-rebalance-initial-delay-ms:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void rebalanceCrowdedParents() {
+        TransactionTemplate perParent = new TransactionTemplate(transactionManager);
+        for (Siblings siblings : Siblings.values()) {
+            List<Object> parents = displayOrderRepository.findCrowdedParents(
+                siblings, rebalanceMinGap, MAX_ORDER, rebalanceBatchSize);
+            int rows = 0;
+            for (Object parentId : parents) {
+                rows += perParent.execute(status -> {
+                    displayOrderRepository.lockParent(siblings, parentId);
+                    return displayOrderRepository.rebalance(siblings, parentId, GAP);
+                });
+            }
+            if (!parents.isEmpty()) {
+                logger.info("Rebalanced display order of {} {} parents ({} rows)", parents.size(), siblings, rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Plain UTF-8 JSON, no compression
+ */
+@Component
+public class JsonTabDataCodec implements TabDataCodec {
+
+    public static final byte ID = 0;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return "json";
+    }
+
+    @Override
+    public byte[] encode(Map<String, Object> data) throws IOException {
+        return objectMapper.writeValueAsBytes(data);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> decode(byte[] bytes) throws IOException {
+        return objectMapper.readValue(bytes, Map.class);
+    }
+}
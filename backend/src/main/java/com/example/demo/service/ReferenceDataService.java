@@ -0,0 +1,197 @@
+package com.example.demo.service;
+
+import com.example.demo.model.SedimentType;
+import com.example.demo.model.SnowLoadValue;
+import com.example.demo.model.WindLoadValue;
+import com.example.demo.repository.SedimentTypeRepository;
+import com.example.demo.repository.SnowLoadValueRepository;
+import com.example.demo.repository.WindLoadValueRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Snow load, wind load and sediment type tables held in memory.
+ *
+ * These are building-code constants, so they are read once and served from immutable snapshots
+ * with their JSON already serialized: a request costs no database work, only a reference read
+ * and a byte copy. A scheduled or admin-triggered reload re-reads the tables and swaps the
+ * snapshots atomically; unchanged tables keep their snapshot and ETag.
+ */
+@Service
+public class ReferenceDataService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataService.class);
+
+    private record Snapshots(ReferenceDataSnapshot<SnowLoadValue> snowLoadValues,
+                             ReferenceDataSnapshot<WindLoadValue> windLoadValues,
+                             ReferenceDataSnapshot<SedimentType> sedimentTypes) {
+    }
+
+    @Autowired
+    private SnowLoadValueRepository snowLoadValueRepository;
+
+    @Autowired
+    private WindLoadValueRepository windLoadValueRepository;
+
+    @Autowired
+    private SedimentTypeRepository sedimentTypeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.reference-data.max-age-seconds:3600}")
+    private long maxAgeSeconds;
+
+    private final AtomicReference<Snapshots> snapshots = new AtomicReference<>();
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    public ReferenceDataSnapshot<SnowLoadValue> getSnowLoadValues() {
+        return current().snowLoadValues();
+    }
+
+    public ReferenceDataSnapshot<WindLoadValue> getWindLoadValues() {
+        return current().windLoadValues();
+    }
+
+    public ReferenceDataSnapshot<SedimentType> getSedimentTypes() {
+        return current().sedimentTypes();
+    }
+
+    /**
+     * 200 with the pre-serialized body, or 304 when the client already holds this snapshot
+     */
+    public ResponseEntity<byte[]> toResponse(ReferenceDataSnapshot<?> snapshot, String ifNoneMatch) {
+        return toResponse(snapshot, ifNoneMatch, snapshot.json());
+    }
+
+    /**
+     * 200 with a body derived from the snapshot (a lookup or search result), cached and
+     * revalidated with the snapshot's ETag since it only changes when the snapshot does
+     */
+    public <B> ResponseEntity<B> toResponse(ReferenceDataSnapshot<?> snapshot, String ifNoneMatch, B body) {
+        CacheControl cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(snapshot.etag())
+                .cacheControl(cacheControl)
+                .build();
+        }
+        return ResponseEntity.ok()
+            .eTag(snapshot.etag())
+            .cacheControl(cacheControl)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // The first request will try again
+            logger.warn("Could not load reference data at startup: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.reference-data.reload-interval-ms:21600000}",
+               initialDelayString = "${app.reference-data.reload-interval-ms:21600000}")
+    public void scheduledReload() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // Keep serving the previous snapshots
+            logger.warn("Reference data reload failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-read all three tables and swap in the new snapshots; returns the current ETag of each table
+     */
+    public Map<String, Object> reload() {
+        // A lock rather than synchronized, so a virtual thread reading the tables does not pin its carrier
+        reloadLock.lock();
+        try {
+            return reloadLocked();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private Map<String, Object> reloadLocked() {
+        Snapshots previous = snapshots.get();
+        Snapshots next = new Snapshots(
+            refresh(previous == null ? null : previous.snowLoadValues(), snowLoadValueRepository::findAll, SnowLoadValue::getCity),
+            refresh(previous == null ? null : previous.windLoadValues(), windLoadValueRepository::findAll, WindLoadValue::getCity),
+            refresh(previous == null ? null : previous.sedimentTypes(), sedimentTypeRepository::findAll, null));
+        snapshots.set(next);
+
+        Map<String, Object> etags = new LinkedHashMap<>();
+        etags.put("snowLoadValues", next.snowLoadValues().etag());
+        etags.put("windLoadValues", next.windLoadValues().etag());
+        etags.put("sedimentTypes", next.sedimentTypes().etag());
+        if (previous == null || !previous.equals(next)) {
+            logger.info("Reference data loaded: {}", etags);
+        }
+        return etags;
+    }
+
+    private Snapshots current() {
+        Snapshots current = snapshots.get();
+        if (current == null) {
+            reload();
+            current = snapshots.get();
+        }
+        return current;
+    }
+
+    private <T> ReferenceDataSnapshot<T> refresh(ReferenceDataSnapshot<T> previous, Supplier<List<T>> loader,
+                                                 Function<T, String> cityOf) {
+        List<T> rows = List.copyOf(loader.get());
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(rows);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize reference data", e);
+        }
+        String etag = etagOf(json);
+        if (previous != null && previous.etag().equals(etag)) {
+            return previous;
+        }
+        CityIndex<T> cityIndex = cityOf == null ? null : new CityIndex<>(rows, cityOf);
+        return new ReferenceDataSnapshot<>(rows, json, etag, Instant.now(), cityIndex);
+    }
+
+    private static String etagOf(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable copy of one reference table: the rows, their JSON exactly as the endpoint returns it,
+ * a strong ETag derived from those bytes and, for tables keyed by city, a lookup index over them.
+ * A reload builds a new snapshot and swaps it in whole.
+ */
+public record ReferenceDataSnapshot<T>(List<T> rows, byte[] json, String etag, Instant loadedAt, CityIndex<T> cityIndex) {
+
+    /**
+     * Whether an If-None-Match header (one or more tags, or *) matches this snapshot
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            candidate = candidate.replace("\"", "");
+            if ("*".equals(candidate) || etag.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
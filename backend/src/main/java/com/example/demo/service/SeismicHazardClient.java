@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Queries the NRCan seismic hazard GraphQL API (the same queries as
+ * pys/network_data_fetcher.create_graphql_query)
+ */
+@Service
+public class SeismicHazardClient {
+
+    public static final String X450 = "X450";
+
+    private static final List<String> SITE_CLASSES = List.of("A", "B", "C", "D", "E");
+
+    // Order of the values in sa_site / sa_x450
+    private static final List<String> FIELDS = List.of("sa0p2", "sa0p5", "sa1p0", "sa2p0", "sa5p0", "sa10p0", "pga");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.seismic.hazard-url:https://www.earthquakescanada.nrcan.gc.ca/api/canshm/graphql}")
+    private String hazardUrl;
+
+    @Value("${app.seismic.timeout-ms:30000}")
+    private long timeoutMs;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    public static boolean isSupported(String siteClass) {
+        return SITE_CLASSES.contains(siteClass) || X450.equals(siteClass);
+    }
+
+    /**
+     * Spectral accelerations at 2% in 50 years for a site class (A-E) or X450 (Vs30 = 450 m/s)
+     */
+    public CompletableFuture<double[]> fetchHazard(double latitude, double longitude, String siteClass) {
+        if (!isSupported(siteClass)) {
+            return CompletableFuture.failedFuture(new RuntimeException("Unsupported site class: " + siteClass));
+        }
+        String designation = X450.equals(siteClass)
+            ? "siteDesignationsXv(vs30: 450, poe50: [2.0, 5.0, 10.0])"
+            : "siteDesignationsXs(siteClass: " + siteClass + ", poe50: [2.0, 5.0, 10.0])";
+        String query = String.format(Locale.ROOT, "query { NBC2020(latitude: %s, longitude: %s) { %s: %s { %s } } }",
+            latitude, longitude, siteClass, designation, String.join(" ", FIELDS));
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(hazardUrl))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(Map.of("query", query))))
+                .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(response -> {
+                if (response.statusCode() != 200) {
+                    throw new RuntimeException("Seismic hazard service returned HTTP " + response.statusCode());
+                }
+                JsonNode rows;
+                try {
+                    rows = objectMapper.readTree(response.body()).path("data").path("NBC2020").path(siteClass);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Invalid response from seismic hazard service", e);
+                }
+                if (!rows.isArray() || rows.isEmpty()) {
+                    throw new RuntimeException("No seismic hazard data for site class " + siteClass);
+                }
+                // First row is the 2% in 50 years probability, as used by the calculators
+                JsonNode row = rows.get(0);
+                double[] values = new double[FIELDS.size()];
+                for (int i = 0; i < values.length; i++) {
+                    JsonNode value = row.path(FIELDS.get(i));
+                    if (!value.isNumber()) {
+                        throw new RuntimeException("Seismic hazard service returned no " + FIELDS.get(i));
+                    }
+                    values[i] = value.asDouble();
+                }
+                return values;
+            });
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.demo.service;
+
+import com.example.demo.model.SeismicHazardValue;
+import com.example.demo.repository.SeismicHazardValueRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * NBC2020 hazard values (sa_site / sa_x450) with a two-level cache in front of the NRCan API.
+ *
+ * Coordinates are snapped to a grid (app.seismic.hazard-grid-degrees, ~100 m by default) and the
+ * hazard is always fetched for the grid point itself, so every lookup in a cell sees the same
+ * values. Entries live in memory and in the seismic_hazard_cache table, which survives restarts;
+ * the published hazard model does not change, so entries do not expire. Concurrent misses for
+ * the same key share one upstream request. Only points in a box around Canada are looked up, as
+ * the hazard model covers nothing else and every miss writes a row.
+ */
+@Service
+public class SeismicHazardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeismicHazardService.class);
+
+    // Bounding box of Canada, with a little margin
+    private static final double MIN_LATITUDE = 41.6;
+    private static final double MAX_LATITUDE = 83.2;
+    private static final double MIN_LONGITUDE = -141.1;
+    private static final double MAX_LONGITUDE = -52.6;
+
+    private final AsyncCache<String, double[]> cache;
+    private final ThreadPoolExecutor loader;
+    private final Counter upstreamRequests;
+
+    @Autowired
+    private SeismicHazardValueRepository seismicHazardValueRepository;
+
+    @Autowired
+    private SeismicHazardClient seismicHazardClient;
+
+    @Value("${app.seismic.hazard-grid-degrees:0.001}")
+    private double gridDegrees;
+
+    public SeismicHazardService(MeterRegistry meterRegistry,
+                                @Value("${app.seismic.hazard-cache.max-size:100000}") long maximumSize,
+                                @Value("${app.seismic.hazard-cache.threads:4}") int threads,
+                                @Value("${app.seismic.hazard-cache.queue-size:256}") int queueSize) {
+        // Loads block on JDBC, so they get their own bounded pool instead of the shared common pool;
+        // when the queue is full a lookup fails at once rather than waiting behind the backlog
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.loader = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize), runnable -> {
+                Thread thread = new Thread(runnable, "seismic-hazard-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.cache = Caffeine.newBuilder()
+            .executor(loader)
+            .maximumSize(maximumSize)
+            .recordStats()
+            .buildAsync();
+        this.upstreamRequests = Counter.builder("seismic.hazard.upstream.requests")
+            .description("Requests sent to the NRCan seismic hazard API")
+            .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "seismicHazard");
+        ExecutorServiceMetrics.monitor(meterRegistry, loader, "seismicHazardLoader");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * Hazard values for the site class and for X450 at a coordinate, shaped like the sa_* fields
+     * of the Flask /api/seismic-info response
+     */
+    public Map<String, Object> getHazard(double latitude, double longitude, String siteClass) {
+        if (!SeismicHazardClient.isSupported(siteClass) || SeismicHazardClient.X450.equals(siteClass)) {
+            throw new RuntimeException("Unsupported site class: " + siteClass);
+        }
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new RuntimeException("Invalid coordinates");
+        }
+        if (latitude < MIN_LATITUDE || latitude > MAX_LATITUDE || longitude < MIN_LONGITUDE || longitude > MAX_LONGITUDE) {
+            throw new RuntimeException("Seismic hazard values are only available for locations in Canada");
+        }
+        long latitudeKey = Math.round(latitude / gridDegrees);
+        long longitudeKey = Math.round(longitude / gridDegrees);
+
+        // Both lookups in flight at once; a cold miss costs one round trip
+        CompletableFuture<double[]> saSite = lookup(latitudeKey, longitudeKey, siteClass);
+        CompletableFuture<double[]> saX450 = lookup(latitudeKey, longitudeKey, SeismicHazardClient.X450);
+
+        Map<String, Object> coordinates = new LinkedHashMap<>();
+        coordinates.put("lat", latitude);
+        coordinates.put("lon", longitude);
+
+        Map<String, Object> gridPoint = new LinkedHashMap<>();
+        gridPoint.put("lat", gridCoordinate(latitudeKey));
+        gridPoint.put("lon", gridCoordinate(longitudeKey));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("site_class", siteClass);
+        result.put("coordinates", coordinates);
+        result.put("grid_point", gridPoint);
+        result.put("sa_site", join(saSite));
+        result.put("sa_x450", join(saX450));
+        return result;
+    }
+
+    private CompletableFuture<double[]> lookup(long latitudeKey, long longitudeKey, String siteClass) {
+        String key = siteClass + ":" + latitudeKey + ":" + longitudeKey;
+        // A failed load is not cached, so the next request retries upstream
+        return cache.get(key, (cacheKey, executor) -> CompletableFuture
+            .supplyAsync(() -> seismicHazardValueRepository.findById(cacheKey), executor)
+            .thenCompose(stored -> {
+                if (stored.isPresent()) {
+                    return CompletableFuture.completedFuture(stored.get().getSaValues());
+                }
+                double latitude = gridCoordinate(latitudeKey);
+                double longitude = gridCoordinate(longitudeKey);
+                upstreamRequests.increment();
+                return seismicHazardClient.fetchHazard(latitude, longitude, siteClass)
+                    .thenApplyAsync(values -> {
+                        store(cacheKey, siteClass, latitude, longitude, values);
+                        return values;
+                    }, executor);
+            }));
+    }
+
+    private void store(String key, String siteClass, double latitude, double longitude, double[] values) {
+        SeismicHazardValue value = new SeismicHazardValue();
+        value.setCacheKey(key);
+        value.setSiteClass(siteClass);
+        value.setLatitude(latitude);
+        value.setLongitude(longitude);
+        value.setSaValues(values);
+        try {
+            seismicHazardValueRepository.save(value);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance stored the same grid point first
+        } catch (RuntimeException e) {
+            logger.warn("Could not store seismic hazard values for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private double gridCoordinate(long key) {
+        // Rounded to 1e-6 degrees so the grid point prints and queries without float noise
+        return Math.round(key * gridDegrees * 1_000_000) / 1_000_000.0;
+    }
+
+    private static double[] join(CompletableFuture<double[]> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Failed to fetch seismic hazard data: " + cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import com.example.demo.model.SedimentType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Calls the Flask seismic service (geocoding, GeoTIFF site class and NRCan hazard values).
+ * Requests are sent asynchronously so callers can do other work while the remote lookups run.
+ */
+@Service
+public class SeismicInfoClient {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.seismic.base-url:http://localhost:5001}")
+    private String baseUrl;
+
+    @Value("${app.seismic.timeout-ms:30000}")
+    private long timeoutMs;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    /**
+     * POST /api/seismic-info for an address (or "lat,lon"), classifying against the given soil table.
+     * Completes exceptionally with the service's error message on a non-2xx response.
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Map<String, Object>> fetchSeismicInfo(String address, String apiKey, List<SedimentType> soilTable) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("address", address);
+        payload.put("api_key", apiKey);
+        payload.put("soil_table", soilTable);
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/seismic-info"))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(payload)))
+                .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(response -> {
+                Map<String, Object> body;
+                try {
+                    body = objectMapper.readValue(response.body(), Map.class);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Invalid response from seismic service (HTTP " + response.statusCode() + ")", e);
+                }
+                if (response.statusCode() / 100 != 2) {
+                    Object error = body.get("error");
+                    throw new RuntimeException(error != null ? error.toString() : "Seismic service returned HTTP " + response.statusCode());
+                }
+                return body;
+            });
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.demo.service;
+
+import com.example.demo.model.SedimentType;
+import com.example.demo.util.GeoTiffRaster;
+import com.example.demo.util.SiteClassGrid;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Site class for a coordinate from the Vancouver geology map, without the Flask hop: the
+ * GeoTIFF is memory-mapped once, the 3x3 window around the point is averaged, and the colour
+ * is matched by cosine similarity against the sediment types' colours, which are kept as unit
+ * vectors so each comparison is one dot product. Same result as the Python
+ * get_pixel_rgb + cosine_similarity path.
+ *
+ * After startup the whole map is classified once in the background into a SiteClassGrid (one
+ * sediment id byte per cell, memory-mapped), after which a lookup is a single index. Until
+ * the grid is ready, or while it is rebuilt after the sediment table changed, lookups fall back
+ * to classifying the pixel directly.
+ */
+@Service
+public class SiteClassService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteClassService.class);
+
+    // Radius of the averaged window: 1 gives 3x3, as in geo_tif_handler.get_pixel_rgb
+    private static final int WINDOW_RADIUS = 1;
+
+    private static final int GRID_CHECK_LOG_SAMPLES = 100_000;
+
+    private record SoilColours(ReferenceDataSnapshot<SedimentType> snapshot, double[][] unitVectors,
+                               Map<Integer, SedimentType> byId, boolean fitsInGrid) {
+    }
+
+    private record GridState(SiteClassGrid grid, SoilColours colours) {
+    }
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Value("${app.site-class.geotiff-path:}")
+    private String geoTiffPath;
+
+    @Value("${app.site-class.cache-dir:${java.io.tmpdir}/site-class}")
+    private String cacheDirectory;
+
+    @Value("${app.site-class.grid-enabled:true}")
+    private boolean gridEnabled;
+
+    // 1 keeps the full map resolution; larger cells trade accuracy for a smaller file (see checkGrid)
+    @Value("${app.site-class.grid-cell-pixels:1}")
+    private int gridCellPixels;
+
+    private volatile GeoTiffRaster raster;
+    private volatile SoilColours soilColours;
+    private volatile GridState gridState;
+
+    private final AtomicBoolean gridBuildRunning = new AtomicBoolean();
+    private final ExecutorService gridBuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "site-class-grid");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (geoTiffPath == null || geoTiffPath.isBlank()) {
+            logger.info("Site class map not configured (app.site-class.geotiff-path)");
+            return;
+        }
+        try {
+            getRaster();
+            scheduleGridBuild();
+        } catch (RuntimeException e) {
+            logger.warn("Could not open site class map: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        gridBuilder.shutdownNow();
+    }
+
+    /**
+     * Classify a coordinate; the result mirrors the site fields of the Flask /api/seismic-info response.
+     * rgb, the averaged map colour, is only computed when the pixel is classified directly and is
+     * null for grid lookups.
+     */
+    public Map<String, Object> classify(double latitude, double longitude) {
+        GeoTiffRaster map = getRaster();
+        SoilColours colours = getSoilColours();
+        if (colours.snapshot().rows().isEmpty()) {
+            throw new RuntimeException("No sediment types available for classification");
+        }
+
+        SedimentType soil = null;
+        GridState grid = gridState;
+        if (grid != null && grid.colours() == colours) {
+            long[] pixel = map.index(longitude, latitude);
+            int id = grid.grid().idAt(pixel[0], pixel[1]);
+            if (id >= 0) {
+                soil = colours.byId().get(id);
+            }
+        } else {
+            scheduleGridBuild();
+        }
+
+        int[] rgb = null;
+        if (soil == null) {
+            // Points just outside the map edge, or no grid yet
+            rgb = map.averageRgb(longitude, latitude, WINDOW_RADIUS);
+            if (rgb == null) {
+                throw new RuntimeException("Location is outside the site class map");
+            }
+            soil = colours.snapshot().rows().get(nearestSoil(rgb[0], rgb[1], rgb[2], colours));
+        }
+
+        Map<String, Object> coordinates = new LinkedHashMap<>();
+        coordinates.put("lat", latitude);
+        coordinates.put("lon", longitude);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("site_class", soil.getSite_class());
+        result.put("coordinates", coordinates);
+        result.put("rgb", rgb);
+        result.put("most_similar_soil", soil);
+        result.put("soil_pressure", soil.getSoil_pressure_psf());
+        return result;
+    }
+
+    /**
+     * Compare the grid against direct per-pixel classification at the centres of random pixels
+     * (every pixel when samples <= 0) and report how often and how they disagree
+     */
+    public Map<String, Object> checkGrid(int samples) {
+        GeoTiffRaster map = getRaster();
+        GridState grid = gridState;
+        if (grid == null || grid.colours() != getSoilColours()) {
+            throw new IllegalStateException("Site class grid is not ready");
+        }
+        SoilColours colours = grid.colours();
+        List<SedimentType> soils = colours.snapshot().rows();
+
+        long pixels = (long) map.getWidth() * map.getHeight();
+        boolean exhaustive = samples <= 0 || samples >= pixels;
+        long checks = exhaustive ? pixels : samples;
+        Random random = new Random(42);
+        long disagreements = 0;
+        Map<String, Long> confusion = new TreeMap<>();
+        for (long i = 0; i < checks; i++) {
+            long pixel = exhaustive ? i : (long) (random.nextDouble() * pixels);
+            long row = pixel / map.getWidth();
+            long col = pixel % map.getWidth();
+            double[] centre = map.pixelCentre(row, col);
+
+            int[] rgb = map.averageRgb(centre[0], centre[1], WINDOW_RADIUS);
+            SedimentType direct = soils.get(nearestSoil(rgb[0], rgb[1], rgb[2], colours));
+            long[] index = map.index(centre[0], centre[1]);
+            SedimentType fromGrid = colours.byId().get(grid.grid().idAt(index[0], index[1]));
+            if (fromGrid != direct) {
+                disagreements++;
+                String key = (fromGrid == null ? "none" : fromGrid.getSediment_name()) + " -> " + direct.getSediment_name();
+                confusion.merge(key, 1L, Long::sum);
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("cellPixels", grid.grid().getCellPixels());
+        report.put("gridBytes", grid.grid().getSizeBytes());
+        report.put("samples", checks);
+        report.put("disagreements", disagreements);
+        report.put("disagreementRate", checks == 0 ? 0.0 : (double) disagreements / checks);
+        report.put("gridToPixel", confusion);
+        return report;
+    }
+
+    // ==================== GRID ====================
+
+    private void scheduleGridBuild() {
+        if (!gridEnabled || !gridBuildRunning.compareAndSet(false, true)) {
+            return;
+        }
+        gridBuilder.execute(() -> {
+            try {
+                prepareGrid();
+            } catch (Exception e) {
+                logger.warn("Could not prepare site class grid: {}", e.getMessage());
+            } finally {
+                gridBuildRunning.set(false);
+            }
+        });
+    }
+
+    private void prepareGrid() throws IOException {
+        GeoTiffRaster map = getRaster();
+        SoilColours colours = getSoilColours();
+        GridState current = gridState;
+        if (current != null && current.colours() == colours) {
+            return;
+        }
+        if (colours.snapshot().rows().isEmpty()) {
+            return;
+        }
+        if (!colours.fitsInGrid()) {
+            logger.warn("Sediment type ids must be 0-255 for the site class grid; classifying per pixel");
+            return;
+        }
+
+        Path source = Path.of(geoTiffPath);
+        long fingerprint = fingerprint(source.toAbsolutePath() + "|" + Files.size(source) + "|"
+            + Files.getLastModifiedTime(source).toMillis() + "|" + gridCellPixels + "|" + colours.snapshot().etag());
+        Path file = Path.of(cacheDirectory).resolve(
+            source.getFileName() + ".k" + gridCellPixels + "." + Long.toHexString(fingerprint) + ".grid");
+
+        SiteClassGrid grid = SiteClassGrid.open(file, map.getWidth(), map.getHeight(), gridCellPixels, fingerprint);
+        if (grid == null) {
+            long start = System.nanoTime();
+            byte[] memo = new byte[1 << 24];
+            grid = SiteClassGrid.build(file, map.getWidth(), map.getHeight(), gridCellPixels, fingerprint,
+                (firstRow, rowCount, ids) -> classifyRows(map, colours, memo, firstRow, rowCount, ids));
+            logger.info("Built site class grid {} ({} bytes) in {} ms", file.getFileName(), grid.getSizeBytes(),
+                (System.nanoTime() - start) / 1_000_000);
+        }
+        gridState = new GridState(grid, colours);
+
+        Map<String, Object> report = checkGrid(GRID_CHECK_LOG_SAMPLES);
+        logger.info("Site class grid ready: {} of {} sampled pixels disagree with per-pixel classification",
+            report.get("disagreements"), report.get("samples"));
+    }
+
+    /**
+     * Per-pixel classification of consecutive rows, averaging each clipped 3x3 window from running
+     * column sums. Classes are memoised by averaged colour as an unsigned byte (index + 1, 0 = not
+     * yet known); the rare index above 254 is just not memoised.
+     */
+    private void classifyRows(GeoTiffRaster map, SoilColours colours, byte[] memo, int firstRow, int rowCount, byte[] ids) {
+        int width = map.getWidth();
+        int height = map.getHeight();
+        List<SedimentType> soils = colours.snapshot().rows();
+
+        // Grid cells hold sediment ids as unsigned bytes (fitsInGrid checked 0-255); idAt reads them with & 0xff
+        byte[] cellIds = new byte[soils.size()];
+        for (int i = 0; i < cellIds.length; i++) {
+            cellIds[i] = (byte) soils.get(i).getId().intValue();
+        }
+
+        int firstSource = Math.max(firstRow - WINDOW_RADIUS, 0);
+        int lastSource = Math.min(firstRow + rowCount - 1 + WINDOW_RADIUS, height - 1);
+        byte[][] rows = new byte[lastSource - firstSource + 1][3 * width];
+        for (int row = firstSource; row <= lastSource; row++) {
+            map.readRow(row, rows[row - firstSource]);
+        }
+
+        int[] columnSums = new int[3 * width];
+        for (int r = 0; r < rowCount; r++) {
+            int row = firstRow + r;
+            int top = Math.max(row - WINDOW_RADIUS, 0);
+            int bottom = Math.min(row + WINDOW_RADIUS, height - 1);
+            Arrays.fill(columnSums, 0);
+            for (int source = top; source <= bottom; source++) {
+                byte[] rgb = rows[source - firstSource];
+                for (int i = 0; i < columnSums.length; i++) {
+                    columnSums[i] += rgb[i] & 0xff;
+                }
+            }
+            int windowRows = bottom - top + 1;
+
+            for (int col = 0; col < width; col++) {
+                int left = Math.max(col - WINDOW_RADIUS, 0);
+                int right = Math.min(col + WINDOW_RADIUS, width - 1);
+                int count = windowRows * (right - left + 1);
+                int red = 0;
+                int green = 0;
+                int blue = 0;
+                for (int c = left; c <= right; c++) {
+                    red += columnSums[c * 3];
+                    green += columnSums[c * 3 + 1];
+                    blue += columnSums[c * 3 + 2];
+                }
+                red /= count;
+                green /= count;
+                blue /= count;
+
+                int colour = (red << 16) | (green << 8) | blue;
+                int soil = (memo[colour] & 0xff) - 1;
+                if (soil < 0) {
+                    soil = nearestSoil(red, green, blue, colours);
+                    if (soil < 0xff) {
+                        memo[colour] = (byte) (soil + 1);
+                    }
+                }
+                ids[r * width + col] = cellIds[soil];
+            }
+        }
+    }
+
+    private static long fingerprint(String inputs) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(inputs.getBytes(StandardCharsets.UTF_8));
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (hash[i] & 0xff);
+            }
+            return value;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // ==================== CLASSIFICATION ====================
+
+    /**
+     * Index of the sediment colour most similar to the given one
+     */
+    private static int nearestSoil(int red, int green, int blue, SoilColours colours) {
+        double[] colour = unitVector(red, green, blue);
+        int best = 0;
+        double bestSimilarity = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < colours.unitVectors().length; i++) {
+            double[] soil = colours.unitVectors()[i];
+            double similarity = colour[0] * soil[0] + colour[1] * soil[1] + colour[2] * soil[2];
+            // Strictly greater keeps the first of equal matches, like list.index(max(...))
+            if (similarity > bestSimilarity) {
+                best = i;
+                bestSimilarity = similarity;
+            }
+        }
+        return best;
+    }
+
+    private GeoTiffRaster getRaster() {
+        GeoTiffRaster current = raster;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (raster == null) {
+                if (geoTiffPath == null || geoTiffPath.isBlank()) {
+                    throw new IllegalStateException("Site class map is not configured");
+                }
+                Path path = Path.of(geoTiffPath);
+                if (!Files.isReadable(path)) {
+                    throw new IllegalStateException("Site class map not found: " + geoTiffPath);
+                }
+                try {
+                    long start = System.nanoTime();
+                    raster = GeoTiffRaster.open(path, Path.of(cacheDirectory));
+                    logger.info("Site class map {} mapped ({}x{}) in {} ms", path.getFileName(),
+                        raster.getWidth(), raster.getHeight(), (System.nanoTime() - start) / 1_000_000);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not read site class map: " + e.getMessage(), e);
+                }
+            }
+            return raster;
+        }
+    }
+
+    /**
+     * Unit vectors of the current sediment colours, rebuilt when the reference data snapshot changes
+     */
+    private SoilColours getSoilColours() {
+        ReferenceDataSnapshot<SedimentType> snapshot = referenceDataService.getSedimentTypes();
+        SoilColours current = soilColours;
+        if (current != null && current.snapshot() == snapshot) {
+            return current;
+        }
+        double[][] vectors = new double[snapshot.rows().size()][];
+        Map<Integer, SedimentType> byId = new HashMap<>();
+        boolean fitsInGrid = true;
+        for (int i = 0; i < vectors.length; i++) {
+            SedimentType soil = snapshot.rows().get(i);
+            vectors[i] = unitVector(valueOf(soil.getColor_r()), valueOf(soil.getColor_g()), valueOf(soil.getColor_b()));
+            byId.put(soil.getId(), soil);
+            fitsInGrid &= soil.getId() != null && soil.getId() >= 0 && soil.getId() <= 255;
+        }
+        current = new SoilColours(snapshot, vectors, byId, fitsInGrid);
+        soilColours = current;
+        return current;
+    }
+
+    private static int valueOf(Integer colour) {
+        return colour == null ? 0 : colour;
+    }
+
+    /**
+     * A black pixel or colour has no direction; it compares as 0 against everything
+     */
+    private static double[] unitVector(int r, int g, int b) {
+        double norm = Math.sqrt((double) r * r + (double) g * g + (double) b * b);
+        if (norm == 0) {
+            return new double[] {0, 0, 0};
+        }
+        return new double[] {r / norm, g / norm, b / norm};
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Serialization stage that runs before tab data is encrypted. The codec id is written
+ * into the binary storage header, so each row can be decoded with the codec it was written with.
+ */
+public interface TabDataCodec {
+
+    /**
+     * Stable id stored in the header byte; never reuse an id for a different format
+     */
+    byte getId();
+
+    /**
+     * Name used to select the codec for new writes (app.encryption.tab-codec)
+     */
+    String getName();
+
+    byte[] encode(Map<String, Object> data) throws IOException;
+
+    Map<String, Object> decode(byte[] bytes) throws IOException;
+}
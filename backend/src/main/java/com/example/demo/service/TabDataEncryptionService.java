@@ -1,17 +1,23 @@
 package com.example.demo.service;
 
+import com.example.demo.util.InstancePool;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Cipher;
-import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -23,84 +29,223 @@ public class TabDataEncryptionService {
     @Value("${app.encryption.secret:default-secret-key-change-in-production}")
     private String applicationSecret;
     
+    @Value("${app.encryption.tab-codec:deflate}")
+    private String writeCodecName;
+    
+    @Autowired
+    private List<TabDataCodec> codecs;
+    
+    @Autowired
+    private CryptoMetrics cryptoMetrics;
+    
+    private Map<Byte, TabDataCodec> codecsById;
+    private TabDataCodec writeCodec;
+    
+    private Timer deriveKeyTimer;
+    private Timer encryptTimer;
+    private Timer decryptTimer;
+    
     private static final String ALGORITHM = "AES/GCM/NoPadding";
     private static final int GCM_IV_LENGTH = 12;
     private static final int GCM_TAG_LENGTH = 16;
     private static final int KEY_LENGTH = 32; // 256 bits
     
+    // Leading byte of the binary (bytea) format, so the layout can evolve per row
+    private static final byte FORMAT_AES_GCM_V1 = 1;    // IV || ciphertext of plain JSON
+    private static final byte FORMAT_AES_GCM_CODEC = 2; // codec id || IV || ciphertext of codec output
+    
+    // SecureRandom is thread-safe and expensive to seed, so share one instance
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    
+    // Cipher and MessageDigest are not thread-safe but are reusable after init/digest, so pool
+    // them instead of a provider lookup on every call (a pool, not a ThreadLocal, so reuse also
+    // works when each request runs on a new virtual thread)
+    private static final InstancePool<Cipher> CIPHERS = new InstancePool<>(() -> {
+        try {
+            return Cipher.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/GCM not available", e);
+        }
+    }, cipher -> { });
+    
+    private static final InstancePool<MessageDigest> SHA_256 = new InstancePool<>(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }, digest -> { });
+    
+    @PostConstruct
+    void initCodecs() {
+        codecsById = new HashMap<>();
+        for (TabDataCodec codec : codecs) {
+            if (codecsById.put(codec.getId(), codec) != null) {
+                throw new IllegalStateException("Duplicate tab data codec id: " + codec.getId());
+            }
+            if (codec.getName().equalsIgnoreCase(writeCodecName)) {
+                writeCodec = codec;
+            }
+        }
+        if (writeCodec == null) {
+            throw new IllegalStateException("Unknown tab data codec: " + writeCodecName);
+        }
+    }
+    
+    @PostConstruct
+    void initMetrics() {
+        deriveKeyTimer = cryptoMetrics.timer("tab-data", "derive-key");
+        encryptTimer = cryptoMetrics.timer("tab-data", "encrypt");
+        decryptTimer = cryptoMetrics.timer("tab-data", "decrypt");
+    }
+    
     /**
      * Encrypt tab data (Map<String, Object>) using user password and application secret
      */
     public String encryptTabData(Map<String, Object> tabData, String userPassword, String userSalt) throws Exception {
+        return encryptTabData(tabData, deriveTabKey(userPassword, userSalt));
+    }
+    
+    /**
+     * Encrypt tab data with an already derived key (see deriveTabKey)
+     */
+    public String encryptTabData(Map<String, Object> tabData, byte[] derivedKey) throws Exception {
         if (tabData == null || tabData.isEmpty()) {
             return null;
         }
         
-        // Convert map to JSON string
-        String jsonData = objectMapper.writeValueAsString(tabData);
-        
-        // Generate encryption key from user password + app secret + salt
-        byte[] derivedKey = deriveKey(userPassword, userSalt, applicationSecret);
-        
-        // Generate random IV
-        SecureRandom random = new SecureRandom();
-        byte[] iv = new byte[GCM_IV_LENGTH];
-        random.nextBytes(iv);
-        
-        // Create secret key
-        SecretKey secretKey = new SecretKeySpec(derivedKey, "AES");
+        // Serialize straight to UTF-8 bytes (Jackson uses recycled buffers, no intermediate String)
+        byte[] plaintext = objectMapper.writeValueAsBytes(tabData);
         
-        // Initialize cipher
-        Cipher cipher = Cipher.getInstance(ALGORITHM);
-        GCMParameterSpec gcmSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-        cipher.init(Cipher.ENCRYPT_MODE, secretKey, gcmSpec);
-        
-        // Encrypt
-        byte[] encrypted = cipher.doFinal(jsonData.getBytes());
-        
-        // Combine IV and encrypted data
-        byte[] combined = new byte[iv.length + encrypted.length];
-        System.arraycopy(iv, 0, combined, 0, iv.length);
-        System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
-        
-        return Base64.getEncoder().encodeToString(combined);
+        return Base64.getEncoder().encodeToString(encrypt(plaintext, derivedKey));
     }
     
     /**
      * Decrypt tab data using user password and application secret
      */
-    @SuppressWarnings("unchecked")
     public Map<String, Object> decryptTabData(String encryptedData, String userPassword, String userSalt) throws Exception {
+        return decryptTabData(encryptedData, deriveTabKey(userPassword, userSalt));
+    }
+    
+    /**
+     * Decrypt tab data with an already derived key (see deriveTabKey)
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> decryptTabData(String encryptedData, byte[] derivedKey) throws Exception {
         if (encryptedData == null || encryptedData.isEmpty()) {
             return null;
         }
         
-        // Generate decryption key
-        byte[] derivedKey = deriveKey(userPassword, userSalt, applicationSecret);
-        
-        // Decode from Base64
         byte[] combined = Base64.getDecoder().decode(encryptedData);
+        byte[] plaintext = decrypt(combined, 0, derivedKey, false);
         
-        // Extract IV and encrypted data
-        byte[] iv = new byte[GCM_IV_LENGTH];
-        byte[] encrypted = new byte[combined.length - GCM_IV_LENGTH];
-        System.arraycopy(combined, 0, iv, 0, GCM_IV_LENGTH);
-        System.arraycopy(combined, GCM_IV_LENGTH, encrypted, 0, encrypted.length);
-        
-        // Create secret key
-        SecretKey secretKey = new SecretKeySpec(derivedKey, "AES");
-        
-        // Initialize cipher
-        Cipher cipher = Cipher.getInstance(ALGORITHM);
-        GCMParameterSpec gcmSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-        cipher.init(Cipher.DECRYPT_MODE, secretKey, gcmSpec);
+        // Jackson parses the UTF-8 bytes directly
+        return objectMapper.readValue(plaintext, Map.class);
+    }
+    
+    /**
+     * Encrypt tab data into the binary storage format:
+     * FORMAT_AES_GCM_CODEC || codec id || IV || ciphertext+tag, with the two header bytes
+     * authenticated as GCM associated data
+     */
+    public byte[] encryptTabDataBinary(Map<String, Object> tabData, byte[] derivedKey) throws Exception {
+        if (tabData == null || tabData.isEmpty()) {
+            return null;
+        }
         
-        // Decrypt
-        byte[] decrypted = cipher.doFinal(encrypted);
-        String jsonData = new String(decrypted);
+        TabDataCodec codec = writeCodec;
+        byte[] plaintext = codec.encode(tabData);
+        return encrypt(plaintext, derivedKey, FORMAT_AES_GCM_CODEC, codec.getId());
+    }
+    
+    /**
+     * Decrypt tab data stored in any binary format version
+     */
+    public Map<String, Object> decryptTabDataBinary(byte[] encryptedBlob, byte[] derivedKey) throws Exception {
+        if (encryptedBlob == null || encryptedBlob.length == 0) {
+            return null;
+        }
         
-        // Convert JSON string back to map
-        return objectMapper.readValue(jsonData, Map.class);
+        switch (encryptedBlob[0]) {
+            case FORMAT_AES_GCM_V1: {
+                // Version 1: plain JSON, header not authenticated
+                byte[] plaintext = decrypt(encryptedBlob, 1, derivedKey, false);
+                return codecsById.get(JsonTabDataCodec.ID).decode(plaintext);
+            }
+            case FORMAT_AES_GCM_CODEC: {
+                TabDataCodec codec = codecsById.get(encryptedBlob[1]);
+                if (codec == null) {
+                    throw new IllegalArgumentException("Unknown tab data codec: " + encryptedBlob[1]);
+                }
+                byte[] plaintext = decrypt(encryptedBlob, 2, derivedKey, true);
+                return codec.decode(plaintext);
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported tab data format: " + encryptedBlob[0]);
+        }
+    }
+    
+    /**
+     * AES-GCM encrypt into a single pre-sized buffer laid out as header || IV || ciphertext+tag.
+     * A non-empty header is bound to the ciphertext as associated data.
+     */
+    private byte[] encrypt(byte[] plaintext, byte[] derivedKey, byte... header) throws GeneralSecurityException {
+        long start = System.nanoTime();
+        cryptoMetrics.recordTabDataWritten(plaintext.length);
+        Cipher cipher = CIPHERS.take();
+        try {
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            SECURE_RANDOM.nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(derivedKey, "AES"),
+                new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
+            if (header.length > 0) {
+                cipher.updateAAD(header);
+            }
+            
+            int offset = header.length + GCM_IV_LENGTH;
+            byte[] combined = new byte[offset + cipher.getOutputSize(plaintext.length)];
+            System.arraycopy(header, 0, combined, 0, header.length);
+            System.arraycopy(iv, 0, combined, header.length, GCM_IV_LENGTH);
+            cipher.doFinal(plaintext, 0, plaintext.length, combined, offset);
+            CryptoMetrics.record(encryptTimer, start);
+            return combined;
+        } finally {
+            // init() on the next take() fully resets the cipher
+            CIPHERS.release(cipher);
+        }
+    }
+    
+    /**
+     * AES-GCM decrypt header || IV || ciphertext+tag in place, without copying the IV or ciphertext out first
+     */
+    private byte[] decrypt(byte[] buffer, int headerLength, byte[] derivedKey, boolean authenticateHeader)
+            throws GeneralSecurityException {
+        long start = System.nanoTime();
+        Cipher cipher = CIPHERS.take();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(derivedKey, "AES"),
+                new GCMParameterSpec(GCM_TAG_LENGTH * 8, buffer, headerLength, GCM_IV_LENGTH));
+            if (authenticateHeader) {
+                cipher.updateAAD(buffer, 0, headerLength);
+            }
+            int offset = headerLength + GCM_IV_LENGTH;
+            byte[] plaintext = cipher.doFinal(buffer, offset, buffer.length - offset);
+            CryptoMetrics.record(decryptTimer, start);
+            cryptoMetrics.recordTabDataRead(plaintext.length);
+            return plaintext;
+        } finally {
+            CIPHERS.release(cipher);
+        }
+    }
+    
+    /**
+     * Derive the AES key for one tab's salt; callers may cache it for the user's unlocked session
+     */
+    public byte[] deriveTabKey(String userPassword, String userSalt) throws Exception {
+        long start = System.nanoTime();
+        byte[] key = deriveKey(userPassword, userSalt, applicationSecret);
+        CryptoMetrics.record(deriveKeyTimer, start);
+        return key;
     }
     
     /**
@@ -110,23 +255,25 @@ public class TabDataEncryptionService {
         // Combine all components
         String combined = userPassword + userSalt + appSecret;
         
-        // Use SHA-256 for key derivation
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hash = digest.digest(combined.getBytes());
+        // Use SHA-256 for key derivation; digest() resets the instance for the next call
+        MessageDigest sha256 = SHA_256.take();
+        byte[] hash;
+        try {
+            hash = sha256.digest(combined.getBytes());
+        } finally {
+            SHA_256.release(sha256);
+        }
         
-        // Return first 32 bytes (256 bits) as raw bytes
-        byte[] keyBytes = new byte[KEY_LENGTH];
-        System.arraycopy(hash, 0, keyBytes, 0, KEY_LENGTH);
-        return keyBytes;
+        // SHA-256 output is exactly 32 bytes (256 bits)
+        return hash.length == KEY_LENGTH ? hash : Arrays.copyOf(hash, KEY_LENGTH);
     }
     
     /**
      * Generate a random salt for tab data encryption
      */
     public String generateSalt() {
-        SecureRandom random = new SecureRandom();
         byte[] salt = new byte[16];
-        random.nextBytes(salt);
+        SECURE_RANDOM.nextBytes(salt);
         return Base64.getEncoder().encodeToString(salt);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,148 @@
+package com.example.demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory-only "unlocked" sessions for tab data encryption.
+ *
+ * Once a user's password has been verified with BCrypt, an entry remembers a keyed
+ * fingerprint of that password plus the per-tab keys derived from it. Later saves that
+ * present the same password skip the BCrypt check and the key derivation. Entries expire
+ * after a period of inactivity and their key material is zeroed when evicted.
+ */
+@Service
+public class TabDataKeyCache {
+
+    private static final String FINGERPRINT_ALGORITHM = "HmacSHA256";
+    private static final int MAX_KEYS_PER_USER = 256;
+
+    // Random per process, so fingerprints are useless outside this JVM
+    private final byte[] fingerprintKey = new byte[32];
+
+    private final Cache<Long, UnlockedSession> sessions;
+
+    public TabDataKeyCache(@Value("${app.encryption.unlock-idle-minutes:15}") long idleMinutes,
+                           @Value("${app.encryption.unlock-max-sessions:10000}") long maximumSessions) {
+        new SecureRandom().nextBytes(fingerprintKey);
+        this.sessions = Caffeine.newBuilder()
+            .maximumSize(maximumSessions)
+            .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+            .removalListener((Long userId, UnlockedSession session, RemovalCause cause) -> {
+                if (session != null) {
+                    session.destroy();
+                }
+            })
+            .build();
+    }
+
+    /**
+     * Whether the user has an unlocked session for exactly this password
+     */
+    public boolean isUnlocked(Long userId, String userPassword) {
+        UnlockedSession session = sessions.getIfPresent(userId);
+        return session != null && session.matches(fingerprint(userPassword));
+    }
+
+    /**
+     * Record that the password was verified; must only be called after a successful BCrypt match
+     */
+    public void unlock(Long userId, String userPassword) {
+        sessions.put(userId, new UnlockedSession(fingerprint(userPassword)));
+    }
+
+    /**
+     * Drop the user's session and zero its key material
+     */
+    public void lock(Long userId) {
+        sessions.invalidate(userId);
+    }
+
+    /**
+     * Derived key for a tab salt, computed once per unlocked session. Returns a copy the caller owns.
+     */
+    public byte[] getDerivedKey(Long userId, String userPassword, String salt, KeyDeriver deriver) throws Exception {
+        UnlockedSession session = sessions.getIfPresent(userId);
+        if (session == null || !session.matches(fingerprint(userPassword))) {
+            return deriver.derive();
+        }
+        return session.getKey(salt, deriver);
+    }
+
+    private byte[] fingerprint(String userPassword) {
+        try {
+            Mac mac = Mac.getInstance(FINGERPRINT_ALGORITHM);
+            mac.init(new SecretKeySpec(fingerprintKey, FINGERPRINT_ALGORITHM));
+            return mac.doFinal(userPassword.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to fingerprint password", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface KeyDeriver {
+        byte[] derive() throws Exception;
+    }
+
+    private static class UnlockedSession {
+
+        private final byte[] fingerprint;
+
+        // Access-ordered so the least recently used tab key is dropped (and zeroed) first
+        private final LinkedHashMap<String, byte[]> keysBySalt = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                if (size() > MAX_KEYS_PER_USER) {
+                    Arrays.fill(eldest.getValue(), (byte) 0);
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        private boolean destroyed;
+
+        UnlockedSession(byte[] fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        synchronized boolean matches(byte[] candidate) {
+            return !destroyed && MessageDigest.isEqual(fingerprint, candidate);
+        }
+
+        synchronized byte[] getKey(String salt, KeyDeriver deriver) throws Exception {
+            if (destroyed) {
+                return deriver.derive();
+            }
+            byte[] key = keysBySalt.get(salt);
+            if (key == null) {
+                key = deriver.derive();
+                keysBySalt.put(salt, key.clone());
+                return key;
+            }
+            return key.clone();
+        }
+
+        synchronized void destroy() {
+            destroyed = true;
+            Arrays.fill(fingerprint, (byte) 0);
+            for (byte[] key : keysBySalt.values()) {
+                Arrays.fill(key, (byte) 0);
+            }
+            keysBySalt.clear();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.service;
+
+/**
+ * Thrown when a tab data write names a version (If-Match) that is no longer current
+ */
+public class TabDataVersionConflictException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final Long currentVersion;
+    
+    public TabDataVersionConflictException(Long currentVersion) {
+        super("Tab data was modified by another session");
+        this.currentVersion = currentVersion;
+    }
+    
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Caches the JWT subject (email) -> user id resolution so authenticated requests
+ * don't need a users-table lookup on every call
+ */
+@Service
+public class UserPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, CachedPrincipal> cache;
+
+    public UserPrincipalCache(UserRepository userRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.auth.principal-cache.max-size:10000}") long maximumSize) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new TokenExpiry())
+            .recordStats()
+            .build();
+
+        // Exposes cache.gets{result=hit|miss}, cache.size, cache.evictions under /actuator/metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwtPrincipals");
+    }
+
+    /**
+     * Resolve the user id for a token subject; a cached entry lives no longer than the token that created it
+     */
+    public Long resolveUserId(String email, Date tokenExpiration) {
+        CachedPrincipal principal = cache.getIfPresent(email);
+        if (principal == null) {
+            // Loaded outside the cache's compute lock: a virtual thread waiting for a JDBC connection
+            // inside that monitor pins its carrier thread, which can stall the connection holders
+            Long userId = userRepository.findByEmail(email)
+                .map(User::getId)
+                .orElseThrow(() -> new RuntimeException("User not found for email: " + email));
+            principal = new CachedPrincipal(userId, tokenExpiration.toInstant());
+            cache.put(email, principal);
+        }
+        return principal.userId();
+    }
+
+    /**
+     * Drop the cached resolution for a user, e.g. after their profile changes
+     */
+    public void evict(String email) {
+        cache.invalidate(email);
+    }
+
+    private record CachedPrincipal(Long userId, Instant expiresAt) {
+    }
+
+    private static class TokenExpiry implements Expiry<String, CachedPrincipal> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedPrincipal value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedPrincipal value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedPrincipal value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -2,11 +2,27 @@ package com.example.demo.service;
 
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Service
@@ -25,6 +41,15 @@ public class WorkspaceDataService {
     @Autowired
     private TabDataRepository tabDataRepository;
     
+    @Autowired
+    private TabDataSectionRepository tabDataSectionRepository;
+    
+    @Autowired
+    private DisplayOrderService displayOrderService;
+    
+    @Autowired
+    private ActiveStateRepository activeStateRepository;
+    
     @Autowired
     private TabDataEncryptionService tabDataEncryptionService;
     
@@ -33,6 +58,24 @@ public class WorkspaceDataService {
     
     @Autowired
     private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private TabDataKeyCache tabDataKeyCache;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.workspace.stream-batch-size:50}")
+    private int streamBatchSize;
 
     // ==================== PROJECT OPERATIONS ====================
     
@@ -48,7 +91,7 @@ public class WorkspaceDataService {
         Project project = new Project();
         project.setUserId(userId);
         project.setName(name);
-        project.setDisplayOrder(projectRepository.findMaxDisplayOrderByUserId(userId) + 1);
+        project.setDisplayOrder(displayOrderService.appendOrder(DisplayOrderRepository.Siblings.PROJECTS, userId));
         project.setIsExpanded(false);
         
         return projectRepository.save(project);
@@ -84,43 +127,14 @@ public class WorkspaceDataService {
             throw new RuntimeException("Unauthorized access to project");
         }
         
+        // Display orders are sparse, so siblings keep theirs
         projectRepository.delete(project);
-        
-        // Reorder remaining projects
-        reorderProjectsAfterDeletion(userId, project.getDisplayOrder());
     }
     
     public void updateProjectOrder(Long userId, List<UUID> projectIds) {
-        List<Project> projects = projectRepository.findAllById(projectIds);
-        
-        // Verify all projects belong to the user
-        for (Project project : projects) {
-            if (!project.getUserId().equals(userId)) {
-                throw new RuntimeException("Unauthorized access to project");
-            }
-        }
-        
-        // Update display order
-        for (int i = 0; i < projectIds.size(); i++) {
-            UUID projectId = projectIds.get(i);
-            Project project = projects.stream()
-                .filter(p -> p.getId().equals(projectId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
-            
-            project.setDisplayOrder(i);
-            projectRepository.save(project);
-        }
-    }
-    
-    private void reorderProjectsAfterDeletion(Long userId, Integer deletedOrder) {
-        List<Project> projectsToReorder = projectRepository
-            .findByUserIdAndDisplayOrderGreaterThanEqualOrderByDisplayOrderAsc(userId, deletedOrder);
-        
-        for (Project project : projectsToReorder) {
-            project.setDisplayOrder(project.getDisplayOrder() - 1);
-            projectRepository.save(project);
-        }
+        // Scoped to the user: a project that is missing or not the user's fails the whole reorder
+        displayOrderService.reorder(DisplayOrderRepository.Siblings.PROJECTS, userId, projectIds,
+            "Project not found or unauthorized access to project");
     }
 
     // ==================== PAGE OPERATIONS ====================
@@ -145,7 +159,7 @@ public class WorkspaceDataService {
         Page page = new Page();
         page.setProjectId(projectId);
         page.setName(name);
-        page.setDisplayOrder(pageRepository.findMaxDisplayOrderByProjectId(projectId) + 1);
+        page.setDisplayOrder(displayOrderService.appendOrder(DisplayOrderRepository.Siblings.PAGES, projectId));
         
         return pageRepository.save(page);
     }
@@ -184,10 +198,8 @@ public class WorkspaceDataService {
             throw new RuntimeException("Unauthorized access to page");
         }
         
+        // Display orders are sparse, so siblings keep theirs
         pageRepository.delete(page);
-        
-        // Reorder remaining pages
-        reorderPagesAfterDeletion(page.getProjectId(), page.getDisplayOrder());
     }
     
     public void updatePageOrder(UUID projectId, Long userId, List<UUID> pageIds) {
@@ -199,19 +211,9 @@ public class WorkspaceDataService {
             throw new RuntimeException("Unauthorized access to project");
         }
         
-        List<Page> pages = pageRepository.findAllById(pageIds);
-        
-        // Update display order
-        for (int i = 0; i < pageIds.size(); i++) {
-            UUID pageId = pageIds.get(i);
-            Page page = pages.stream()
-                .filter(p -> p.getId().equals(pageId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Page not found: " + pageId));
-            
-            page.setDisplayOrder(i);
-            pageRepository.save(page);
-        }
+        // Only pages whose relative order changed are rewritten, in one statement scoped to the project
+        displayOrderService.reorder(DisplayOrderRepository.Siblings.PAGES, projectId, pageIds,
+            "Page not found or does not belong to the specified project");
     }
     
     public void movePageToProject(UUID pageId, UUID newProjectId, Long userId) {
@@ -228,26 +230,10 @@ public class WorkspaceDataService {
             throw new RuntimeException("Unauthorized access to projects");
         }
         
-        // Move page to new project
-        Integer oldOrder = page.getDisplayOrder();
-        UUID oldProjectId = page.getProjectId();
-        
+        // Move page to the end of the new project; pages left behind keep their orders
         page.setProjectId(newProjectId);
-        page.setDisplayOrder(pageRepository.findMaxDisplayOrderByProjectId(newProjectId) + 1);
+        page.setDisplayOrder(displayOrderService.appendOrder(DisplayOrderRepository.Siblings.PAGES, newProjectId));
         pageRepository.save(page);
-        
-        // Reorder pages in old project
-        reorderPagesAfterDeletion(oldProjectId, oldOrder);
-    }
-    
-    private void reorderPagesAfterDeletion(UUID projectId, Integer deletedOrder) {
-        List<Page> pagesToReorder = pageRepository
-            .findByProjectIdAndDisplayOrderGreaterThanEqualOrderByDisplayOrderAsc(projectId, deletedOrder);
-        
-        for (Page page : pagesToReorder) {
-            page.setDisplayOrder(page.getDisplayOrder() - 1);
-            pageRepository.save(page);
-        }
     }
 
     // ==================== TAB OPERATIONS ====================
@@ -276,37 +262,17 @@ public class WorkspaceDataService {
             throw new RuntimeException("Tab with name '" + name + "' already exists on this page");
         }
         
-        // Deactivate other tabs on the page
-        List<Tab> activeTabs = tabRepository.findActiveTabsByPageId(pageId);
-        for (Tab activeTab : activeTabs) {
-            activeTab.setIsActive(false);
-            tabRepository.save(activeTab);
-        }
-        
         Tab tab = new Tab();
         tab.setPageId(pageId);
         tab.setName(name);
         tab.setTabType(tabType);
         
-        // Set display order based on position
+        // Set display order based on position: a rank between the neighbours, no shifting of later tabs
         if (position != null && position >= 0) {
-            // Insert at specific position - shift existing tabs
-            List<Tab> existingTabs = tabRepository.findByPageIdOrderByDisplayOrderAsc(pageId);
-            if (position <= existingTabs.size()) {
-                // Shift tabs at and after the position
-                for (int i = position; i < existingTabs.size(); i++) {
-                    Tab existingTab = existingTabs.get(i);
-                    existingTab.setDisplayOrder(existingTab.getDisplayOrder() + 1);
-                    tabRepository.save(existingTab);
-                }
-                tab.setDisplayOrder(position);
-            } else {
-                // Position is beyond existing tabs, put at end
-                tab.setDisplayOrder(tabRepository.findMaxDisplayOrderByPageId(pageId) + 1);
-            }
+            tab.setDisplayOrder(displayOrderService.insertOrder(DisplayOrderRepository.Siblings.TABS, pageId, position));
         } else {
             // Default behavior - put at end
-            tab.setDisplayOrder(tabRepository.findMaxDisplayOrderByPageId(pageId) + 1);
+            tab.setDisplayOrder(displayOrderService.appendOrder(DisplayOrderRepository.Siblings.TABS, pageId));
         }
         
         tab.setIsActive(true);
@@ -314,6 +280,9 @@ public class WorkspaceDataService {
         
         Tab savedTab = tabRepository.save(tab);
         
+        // Deactivate the other tabs on the page and point the user's cursor at the new tab
+        activeStateRepository.activateTab(userId, savedTab.getId());
+        
         // Create empty tab data - only for tabs that need data storage
         // Template tabs (Welcome, design_tables) don't need data storage
         if (!"Welcome".equals(tabType) && !"design_tables".equals(tabType)) {
@@ -358,13 +327,10 @@ public class WorkspaceDataService {
             }
         }
         
-        if (isActive != null && isActive && !tab.getIsActive()) {
-            // Deactivate other tabs on the same page
-            List<Tab> activeTabs = tabRepository.findActiveTabsByPageId(tab.getPageId());
-            for (Tab activeTab : activeTabs) {
-                activeTab.setIsActive(false);
-                tabRepository.save(activeTab);
-            }
+        if (isActive != null && isActive) {
+            // Deactivates the other tabs on the page and moves the cursor in one statement;
+            // keep the managed entity in step so the save below does not undo it
+            activeStateRepository.activateTab(userId, tabId);
             tab.setIsActive(true);
         } else if (isActive != null) {
             tab.setIsActive(isActive);
@@ -377,22 +343,12 @@ public class WorkspaceDataService {
         return tabRepository.save(tab);
     }
     
+    /**
+     * Switch the active tab: ownership check, the is_active flags up to the project and the user's cursor in one statement
+     */
     public void updateActiveTab(UUID tabId, Long userId) {
-        Tab tab = tabRepository.findById(tabId)
-            .orElseThrow(() -> new RuntimeException("Tab not found"));
-            
-        // Verify ownership
-        verifyTabOwnership(tab, userId);
-        
-        if (!tab.getIsActive()) {
-            // Deactivate other tabs on the same page
-            List<Tab> activeTabs = tabRepository.findActiveTabsByPageId(tab.getPageId());
-            for (Tab activeTab : activeTabs) {
-                activeTab.setIsActive(false);
-                tabRepository.save(activeTab);
-            }
-            tab.setIsActive(true);
-            tabRepository.save(tab);
+        if (activeStateRepository.activateTab(userId, tabId) == 0) {
+            throw new RuntimeException("Tab not found or unauthorized access to tab");
         }
     }
     
@@ -402,10 +358,8 @@ public class WorkspaceDataService {
             
         verifyTabOwnership(tab, userId);
         
+        // Display orders are sparse, so siblings keep theirs
         tabRepository.delete(tab);
-        
-        // Reorder remaining tabs
-        reorderTabsAfterDeletion(tab.getPageId(), tab.getDisplayOrder());
     }
     
     public Tab duplicateTab(UUID tabId, Long userId, String newName) {
@@ -423,7 +377,7 @@ public class WorkspaceDataService {
         newTab.setPageId(originalTab.getPageId());
         newTab.setName(newName);
         newTab.setTabType(originalTab.getTabType());
-        newTab.setDisplayOrder(tabRepository.findMaxDisplayOrderByPageId(originalTab.getPageId()) + 1);
+        newTab.setDisplayOrder(displayOrderService.appendOrder(DisplayOrderRepository.Siblings.TABS, originalTab.getPageId()));
         newTab.setIsActive(false);
         newTab.setIsLocked(false);
         
@@ -439,8 +393,23 @@ public class WorkspaceDataService {
                 newData.setIsEncrypted(originalData.getIsEncrypted());
                 newData.setDataSalt(originalData.getDataSalt());
                 newData.setEncryptedData(originalData.getEncryptedData());
+                newData.setEncryptedBlob(originalData.getEncryptedBlob());
+                newData.setIsSectioned(originalData.getIsSectioned());
                 newData.setData(originalData.getData());
                 tabDataRepository.save(newData);
+                
+                // Sections are encrypted with the salt copied above, so the blobs can be copied as-is
+                if (isSectioned(originalData)) {
+                    List<TabDataSection> copies = new ArrayList<>();
+                    for (TabDataSection section : tabDataSectionRepository.findByTabId(tabId)) {
+                        TabDataSection copy = new TabDataSection();
+                        copy.setTabId(savedTab.getId());
+                        copy.setSectionKey(section.getSectionKey());
+                        copy.setEncryptedBlob(section.getEncryptedBlob());
+                        copies.add(copy);
+                    }
+                    tabDataSectionRepository.saveAll(copies);
+                }
             }
         }
         
@@ -459,16 +428,6 @@ public class WorkspaceDataService {
         }
     }
     
-    private void reorderTabsAfterDeletion(UUID pageId, Integer deletedOrder) {
-        List<Tab> tabsToReorder = tabRepository
-            .findByPageIdAndDisplayOrderGreaterThanEqualOrderByDisplayOrderAsc(pageId, deletedOrder);
-        
-        for (Tab tab : tabsToReorder) {
-            tab.setDisplayOrder(tab.getDisplayOrder() - 1);
-            tabRepository.save(tab);
-        }
-    }
-    
     public void updateTabOrder(UUID pageId, Long userId, List<UUID> tabIds) {
         // Verify ownership of the page
         Page page = pageRepository.findById(pageId)
@@ -480,20 +439,9 @@ public class WorkspaceDataService {
             throw new RuntimeException("Unauthorized access to page");
         }
         
-        // Update display order for each tab
-        for (int i = 0; i < tabIds.size(); i++) {
-            UUID tabId = tabIds.get(i);
-            Tab tab = tabRepository.findById(tabId)
-                .orElseThrow(() -> new RuntimeException("Tab not found: " + tabId));
-            
-            // Verify tab belongs to the page
-            if (!tab.getPageId().equals(pageId)) {
-                throw new RuntimeException("Tab does not belong to the specified page");
-            }
-            
-            tab.setDisplayOrder(i);
-            tabRepository.save(tab);
-        }
+        // Only tabs whose relative order changed are rewritten, in one statement scoped to the page
+        displayOrderService.reorder(DisplayOrderRepository.Siblings.TABS, pageId, tabIds,
+            "Tab not found or does not belong to the specified page");
     }
 
     // ==================== TAB DATA OPERATIONS ====================
@@ -534,22 +482,18 @@ public class WorkspaceDataService {
         if (tabData.getIsEncrypted() && userPassword != null && !userPassword.isEmpty()) {
             try {
                 // Verify user password first
-                User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-                
-                if (!passwordEncoder.matches(userPassword, user.getPassword())) {
-                    throw new RuntimeException("Invalid password for data decryption");
-                }
+                verifyEncryptionPassword(userId, userPassword, "Invalid password for data decryption");
                 
                 // Decrypt the data for merging
-                Map<String, Object> decryptedData = tabDataEncryptionService.decryptTabData(
-                    tabData.getEncryptedData(), userPassword, tabData.getDataSalt());
+                Map<String, Object> decryptedData = readEncryptedData(
+                    tabData, getTabKey(userId, userPassword, tabData.getDataSalt()));
                 
                 // Return a copy with decrypted data for merging (don't modify original)
                 TabData decryptedTabData = new TabData();
                 decryptedTabData.setTabId(tabData.getTabId());
                 decryptedTabData.setData(decryptedData);
                 decryptedTabData.setIsEncrypted(false); // Mark as decrypted for merging
+                decryptedTabData.setVersion(tabData.getVersion());
                 decryptedTabData.setCreatedAt(tabData.getCreatedAt());
                 decryptedTabData.setUpdatedAt(tabData.getUpdatedAt());
                 
@@ -563,28 +507,89 @@ public class WorkspaceDataService {
     }
     
     /**
-     * Save tab data with encryption
+     * Current version of a tab's data (null if nothing is stored yet), for conditional reads
      */
-    public TabData saveTabDataEncrypted(UUID tabId, Long userId, Map<String, Object> newData, String userPassword) {
+    @Transactional(readOnly = true)
+    public Long getTabDataVersion(UUID tabId, Long userId) {
         Tab tab = tabRepository.findById(tabId)
             .orElseThrow(() -> new RuntimeException("Tab not found"));
             
         verifyTabOwnership(tab, userId);
         
-        // Verify user password first
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+        return tabDataRepository.findVersionByTabId(tabId).orElse(null);
+    }
+    
+    /**
+     * Decrypt only the given top-level sections (all of them when sectionKeys is null), so a
+     * client whose write conflicted can rebase its delta without reloading the whole tab
+     */
+    @Transactional(readOnly = true)
+    public TabData getTabDataSectionsForMerging(UUID tabId, Long userId, Collection<String> sectionKeys, String userPassword) {
+        Tab tab = tabRepository.findById(tabId)
+            .orElseThrow(() -> new RuntimeException("Tab not found"));
+            
+        verifyTabOwnership(tab, userId);
+        verifyEncryptionPassword(userId, userPassword, "Invalid password for data decryption");
         
-        if (!passwordEncoder.matches(userPassword, user.getPassword())) {
-            throw new RuntimeException("Invalid password for data encryption");
+        TabData decryptedTabData = new TabData();
+        decryptedTabData.setTabId(tabId);
+        decryptedTabData.setIsEncrypted(false);
+        decryptedTabData.setData(new HashMap<>());
+        
+        TabData tabData = tabDataRepository.findById(tabId).orElse(null);
+        if (tabData == null) {
+            return decryptedTabData;
         }
+        decryptedTabData.setVersion(tabData.getVersion());
+        decryptedTabData.setCreatedAt(tabData.getCreatedAt());
+        decryptedTabData.setUpdatedAt(tabData.getUpdatedAt());
         
-        TabData tabData = tabDataRepository.findById(tabId)
+        try {
+            byte[] key = getTabKey(userId, userPassword, tabData.getDataSalt());
+            Map<String, Object> data = new HashMap<>();
+            if (isSectioned(tabData)) {
+                List<TabDataSection> sections = sectionKeys == null
+                    ? tabDataSectionRepository.findByTabId(tabId)
+                    : tabDataSectionRepository.findByTabIdAndSectionKeyIn(tabId, sectionKeys);
+                for (TabDataSection section : sections) {
+                    data.put(section.getSectionKey(), readSection(section, key));
+                }
+            } else if (tabData.getIsEncrypted() && hasEncryptedData(tabData)) {
+                Map<String, Object> decrypted = readEncryptedData(tabData, key);
+                if (decrypted != null) {
+                    data.putAll(decrypted);
+                }
+                if (sectionKeys != null) {
+                    data.keySet().retainAll(sectionKeys);
+                }
+            }
+            decryptedTabData.setData(data);
+            return decryptedTabData;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to decrypt tab data: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Save tab data with encryption; a non-null expectedVersion must match the stored version
+     */
+    public TabData saveTabDataEncrypted(UUID tabId, Long userId, Map<String, Object> newData, String userPassword,
+                                        Long expectedVersion) {
+        Tab tab = tabRepository.findById(tabId)
+            .orElseThrow(() -> new RuntimeException("Tab not found"));
+            
+        verifyTabOwnership(tab, userId);
+        
+        // Verify user password first
+        verifyEncryptionPassword(userId, userPassword, "Invalid password for data encryption");
+        
+        TabData tabData = findTabDataForWrite(tabId, expectedVersion)
             .orElseGet(() -> {
                 TabData newTabData = new TabData();
                 newTabData.setTabId(tabId);
                 return newTabData;
             });
+        checkVersion(tabData, expectedVersion);
         
         try {
             // Generate salt if not exists
@@ -592,15 +597,15 @@ public class WorkspaceDataService {
                 tabData.setDataSalt(tabDataEncryptionService.generateSalt());
             }
             
-            // Encrypt the data
-            String encryptedData = tabDataEncryptionService.encryptTabData(newData, userPassword, tabData.getDataSalt());
-            
-            // Store encrypted data
-            tabData.setEncryptedData(encryptedData);
-            tabData.setIsEncrypted(true);
-            tabData.setData(null); // Clear unencrypted data
+            // Replace every section; the tab_data row must exist before its sections
+            byte[] key = getTabKey(userId, userPassword, tabData.getDataSalt());
+            markSectioned(tabData);
+            tabData.setUpdatedAt(LocalDateTime.now()); // Always bumps the version, even if no column changed
+            tabData = tabDataRepository.save(tabData);
+            tabDataSectionRepository.deleteByTabId(tabId);
+            writeSections(tabId, newData, key);
             
-            return tabDataRepository.save(tabData);
+            return tabData;
         } catch (Exception e) {
             throw new RuntimeException("Failed to encrypt tab data: " + e.getMessage());
         }
@@ -649,8 +654,9 @@ public class WorkspaceDataService {
     /**
      * Replace tab data with encryption
      */
-    public TabData replaceTabDataEncrypted(UUID tabId, Long userId, Map<String, Object> newData, String userPassword) {
-        return saveTabDataEncrypted(tabId, userId, newData, userPassword);
+    public TabData replaceTabDataEncrypted(UUID tabId, Long userId, Map<String, Object> newData, String userPassword,
+                                           Long expectedVersion) {
+        return saveTabDataEncrypted(tabId, userId, newData, userPassword, expectedVersion);
     }
 
     public TabData updateTabData(UUID tabId, Long userId, Map<String, Object> deltaData) {
@@ -660,23 +666,34 @@ public class WorkspaceDataService {
     }
     
     /**
-     * Update tab data with encryption - merges delta data with existing encrypted data
+     * Update tab data with encryption - deep merges delta data into the stored sections.
+     * Only the top-level sections named in the delta are decrypted and re-encrypted.
      */
-    public TabData updateTabDataEncrypted(UUID tabId, Long userId, Map<String, Object> deltaData, String userPassword) {
+    public TabData updateTabDataEncrypted(UUID tabId, Long userId, Map<String, Object> deltaData, String userPassword,
+                                          Long expectedVersion) {
+        return applyTabDataDelta(tabId, userId, deltaData, userPassword, expectedVersion, false);
+    }
+    
+    /**
+     * Apply a JSON merge patch (RFC 7396) to encrypted tab data: same as updateTabDataEncrypted,
+     * except that a null value removes the key instead of storing null
+     */
+    public TabData patchTabDataEncrypted(UUID tabId, Long userId, Map<String, Object> patch, String userPassword,
+                                         Long expectedVersion) {
+        return applyTabDataDelta(tabId, userId, patch, userPassword, expectedVersion, true);
+    }
+    
+    private TabData applyTabDataDelta(UUID tabId, Long userId, Map<String, Object> deltaData,
+                                      String userPassword, Long expectedVersion, boolean removeNulls) {
         Tab tab = tabRepository.findById(tabId)
             .orElseThrow(() -> new RuntimeException("Tab not found"));
             
         verifyTabOwnership(tab, userId);
         
         // Verify user password first
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+        verifyEncryptionPassword(userId, userPassword, "Invalid password for data encryption");
         
-        if (!passwordEncoder.matches(userPassword, user.getPassword())) {
-            throw new RuntimeException("Invalid password for data encryption");
-        }
-        
-        TabData tabData = tabDataRepository.findById(tabId)
+        TabData tabData = findTabDataForWrite(tabId, expectedVersion)
             .orElseGet(() -> {
                 TabData newData = new TabData();
                 newData.setTabId(tabId);
@@ -684,71 +701,246 @@ public class WorkspaceDataService {
                 newData.setDataSalt(tabDataEncryptionService.generateSalt());
                 return newData;
             });
+        checkVersion(tabData, expectedVersion);
         
         try {
-            Map<String, Object> currentData = new HashMap<>();
+            if (tabData.getDataSalt() == null) {
+                tabData.setDataSalt(tabDataEncryptionService.generateSalt());
+            }
+            byte[] key = getTabKey(userId, userPassword, tabData.getDataSalt());
+            
+            if (isSectioned(tabData)) {
+                mergeSections(tabId, deltaData, key, removeNulls);
+                tabData.setUpdatedAt(LocalDateTime.now());
+                return tabDataRepository.save(tabData);
+            }
             
-            // If data exists and is encrypted, decrypt it first
-            if (tabData.getIsEncrypted() && tabData.getEncryptedData() != null) {
-                currentData = tabDataEncryptionService.decryptTabData(
-                    tabData.getEncryptedData(), userPassword, tabData.getDataSalt());
+            // First write since the sectioned layout: convert the whole document once
+            Map<String, Object> currentData = new HashMap<>();
+            if (tabData.getIsEncrypted() && hasEncryptedData(tabData)) {
+                currentData = readEncryptedData(tabData, key);
             } else if (!tabData.getIsEncrypted() && tabData.getData() != null) {
                 // Migrating from unencrypted to encrypted
                 currentData = new HashMap<>(tabData.getData());
-                if (tabData.getDataSalt() == null) {
-                    tabData.setDataSalt(tabDataEncryptionService.generateSalt());
-                }
             }
-            
-            // Deep merge delta data with existing data
             if (currentData == null) {
                 currentData = new HashMap<>();
             }
-            currentData = deepMerge(currentData, deltaData);
+            currentData = deepMerge(currentData, deltaData, removeNulls);
             
-            // Encrypt and save
-            String encryptedData = tabDataEncryptionService.encryptTabData(currentData, userPassword, tabData.getDataSalt());
+            markSectioned(tabData);
+            tabData = tabDataRepository.save(tabData);
+            writeSections(tabId, currentData, key);
             
-            tabData.setEncryptedData(encryptedData);
-            tabData.setIsEncrypted(true);
-            tabData.setData(null); // Clear unencrypted data
-            
-            return tabDataRepository.save(tabData);
+            return tabData;
         } catch (Exception e) {
             throw new RuntimeException("Failed to update encrypted tab data: " + e.getMessage());
         }
     }
 
     /**
-     * Validate user password for encryption operations
+     * A write without If-Match has no precondition to fail, so concurrent writers queue on a row
+     * lock instead of all but one losing the @Version check. The row is usually already managed
+     * (loaded along with its Tab), so it is re-read under the lock rather than queried.
+     */
+    private Optional<TabData> findTabDataForWrite(UUID tabId, Long expectedVersion) {
+        Optional<TabData> tabData = tabDataRepository.findById(tabId);
+        if (expectedVersion == null) {
+            tabData.ifPresent(data -> entityManager.refresh(data, LockModeType.PESSIMISTIC_WRITE));
+        }
+        return tabData;
+    }
+    
+    /**
+     * Fail fast when the client's If-Match version is stale; writes that race past this check
+     * are still caught by the @Version check when the transaction flushes
+     */
+    private void checkVersion(TabData tabData, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(tabData.getVersion())) {
+            throw new TabDataVersionConflictException(tabData.getVersion());
+        }
+    }
+    
+    private boolean hasEncryptedData(TabData tabData) {
+        return isSectioned(tabData) || tabData.getEncryptedBlob() != null || tabData.getEncryptedData() != null;
+    }
+    
+    private boolean isSectioned(TabData tabData) {
+        return Boolean.TRUE.equals(tabData.getIsSectioned());
+    }
+    
+    /**
+     * Decrypt whichever storage layout the row is in: sections, binary (bytea) or legacy Base64 text
+     */
+    private Map<String, Object> readEncryptedData(TabData tabData, byte[] key) throws Exception {
+        if (isSectioned(tabData)) {
+            return readSections(tabData.getTabId(), key);
+        }
+        if (tabData.getEncryptedBlob() != null) {
+            return tabDataEncryptionService.decryptTabDataBinary(tabData.getEncryptedBlob(), key);
+        }
+        return tabDataEncryptionService.decryptTabData(tabData.getEncryptedData(), key);
+    }
+    
+    /**
+     * Switch the row to the sectioned layout, dropping the whole-document columns it replaces
+     */
+    private void markSectioned(TabData tabData) {
+        tabData.setIsSectioned(true);
+        tabData.setIsEncrypted(true);
+        tabData.setEncryptedBlob(null);
+        tabData.setEncryptedData(null);
+        tabData.setData(null); // Clear unencrypted data
+    }
+    
+    private Map<String, Object> readSections(UUID tabId, byte[] key) throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        for (TabDataSection section : tabDataSectionRepository.findByTabId(tabId)) {
+            data.put(section.getSectionKey(), readSection(section, key));
+        }
+        return data;
+    }
+    
+    private void writeSections(UUID tabId, Map<String, Object> data, byte[] key) throws Exception {
+        List<TabDataSection> sections = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            TabDataSection section = new TabDataSection();
+            section.setTabId(tabId);
+            section.setSectionKey(entry.getKey());
+            section.setEncryptedBlob(encryptSection(entry.getKey(), entry.getValue(), key));
+            sections.add(section);
+        }
+        tabDataSectionRepository.saveAll(sections);
+    }
+    
+    /**
+     * Merge the delta section by section. A stored section is only decrypted when both it and
+     * the delta value are maps; sections the delta does not mention are never read or written.
+     */
+    @SuppressWarnings("unchecked")
+    private void mergeSections(UUID tabId, Map<String, Object> deltaData, byte[] key, boolean removeNulls) throws Exception {
+        if (deltaData.isEmpty()) {
+            return;
+        }
+        
+        Map<String, TabDataSection> existing = new HashMap<>();
+        for (TabDataSection section : tabDataSectionRepository.findByTabIdAndSectionKeyIn(tabId, deltaData.keySet())) {
+            existing.put(section.getSectionKey(), section);
+        }
+        
+        List<String> removed = new ArrayList<>();
+        List<TabDataSection> changed = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : deltaData.entrySet()) {
+            String sectionKey = entry.getKey();
+            TabDataSection section = existing.get(sectionKey);
+            
+            Map<String, Object> current = new HashMap<>();
+            if (section != null && entry.getValue() instanceof Map) {
+                current.put(sectionKey, readSection(section, key));
+            }
+            Map<String, Object> merged = deepMerge(current,
+                Collections.singletonMap(sectionKey, entry.getValue()), removeNulls);
+            
+            if (!merged.containsKey(sectionKey)) {
+                if (section != null) {
+                    removed.add(sectionKey);
+                }
+                continue;
+            }
+            if (section == null) {
+                section = new TabDataSection();
+                section.setTabId(tabId);
+                section.setSectionKey(sectionKey);
+            }
+            section.setEncryptedBlob(encryptSection(sectionKey, merged.get(sectionKey), key));
+            changed.add(section);
+        }
+        
+        if (!removed.isEmpty()) {
+            tabDataSectionRepository.deleteByTabIdAndSectionKeyIn(tabId, removed);
+        }
+        tabDataSectionRepository.saveAll(changed);
+    }
+    
+    /**
+     * Each section is stored as the one-entry map {sectionKey: value}, so a blob moved to
+     * another key fails the check in readSection
+     */
+    private byte[] encryptSection(String sectionKey, Object value, byte[] key) throws Exception {
+        return tabDataEncryptionService.encryptTabDataBinary(Collections.singletonMap(sectionKey, value), key);
+    }
+    
+    private Object readSection(TabDataSection section, byte[] key) throws Exception {
+        Map<String, Object> decrypted = tabDataEncryptionService.decryptTabDataBinary(section.getEncryptedBlob(), key);
+        if (decrypted == null || decrypted.size() != 1 || !decrypted.containsKey(section.getSectionKey())) {
+            throw new RuntimeException("Tab data section does not match its key: " + section.getSectionKey());
+        }
+        return decrypted.get(section.getSectionKey());
+    }
+    
+    /**
+     * Validate user password for encryption operations; a valid password unlocks the
+     * user's encryption session so subsequent saves skip BCrypt
      */
     public boolean validateUserPassword(Long userId, String userPassword) {
         try {
-            User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-            
-            return passwordEncoder.matches(userPassword, user.getPassword());
+            verifyEncryptionPassword(userId, userPassword, "Invalid password");
+            return true;
         } catch (Exception e) {
             return false;
         }
     }
     
     /**
-     * Deep merge two maps - recursively merges nested maps
+     * Forget the user's unlocked encryption session and its cached keys
+     */
+    public void lockEncryptionSession(Long userId) {
+        tabDataKeyCache.lock(userId);
+    }
+    
+    /**
+     * Verify the password with BCrypt unless the user already unlocked with this exact password
+     */
+    private void verifyEncryptionPassword(Long userId, String userPassword, String errorMessage) {
+        if (tabDataKeyCache.isUnlocked(userId, userPassword)) {
+            return;
+        }
+        
+        User user = userRepository.findById(userId)
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        if (!passwordEncoder.matches(userPassword, user.getPassword())) {
+            throw new RuntimeException(errorMessage);
+        }
+        
+        tabDataKeyCache.unlock(userId, userPassword);
+    }
+    
+    private byte[] getTabKey(Long userId, String userPassword, String salt) throws Exception {
+        return tabDataKeyCache.getDerivedKey(userId, userPassword, salt,
+            () -> tabDataEncryptionService.deriveTabKey(userPassword, salt));
+    }
+    
+    /**
+     * Deep merge two maps - recursively merges nested maps.
+     * With removeNulls a null source value deletes the key (JSON merge patch semantics).
      */
     @SuppressWarnings("unchecked")
-    private Map<String, Object> deepMerge(Map<String, Object> target, Map<String, Object> source) {
+    static Map<String, Object> deepMerge(Map<String, Object> target, Map<String, Object> source, boolean removeNulls) {
         Map<String, Object> result = new HashMap<>(target);
         
         for (Map.Entry<String, Object> entry : source.entrySet()) {
             String key = entry.getKey();
             Object sourceValue = entry.getValue();
             
-            if (sourceValue instanceof Map && result.get(key) instanceof Map) {
-                // Both are maps, recursively merge them
-                Map<String, Object> targetMap = (Map<String, Object>) result.get(key);
+            if (removeNulls && sourceValue == null) {
+                result.remove(key);
+            } else if (sourceValue instanceof Map && (result.get(key) instanceof Map || removeNulls)) {
+                // Both are maps, recursively merge them (a merge patch also strips nulls from new maps)
+                Map<String, Object> targetMap = result.get(key) instanceof Map
+                    ? (Map<String, Object>) result.get(key) : new HashMap<>();
                 Map<String, Object> sourceMap = (Map<String, Object>) sourceValue;
-                result.put(key, deepMerge(targetMap, sourceMap));
+                result.put(key, deepMerge(targetMap, sourceMap, removeNulls));
             } else {
                 // Replace or add the value
                 result.put(key, sourceValue);
@@ -760,26 +952,119 @@ public class WorkspaceDataService {
     
     // ==================== WORKSPACE OPERATIONS ====================
     
+    @Transactional(readOnly = true)
     public Map<String, Object> getAllWorkspaceData(Long userId) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("projects", loadWorkspaceTree(userId));
+
+        return result;
+    }
+
+    /**
+     * Load the user's whole project -> page -> tab hierarchy in a constant number of queries
+     * (one per level) and assemble it in memory, independent of how many projects/pages exist
+     */
+    private List<Project> loadWorkspaceTree(Long userId) {
         List<Project> projects = projectRepository.findByUserIdOrderByDisplayOrderAsc(userId);
-        
-        // Manually load nested data for each project
+        if (projects.isEmpty()) {
+            return projects;
+        }
+
+        List<Page> pages = pageRepository.findAllByUserIdOrderByDisplayOrderAsc(userId);
+        List<Tab> tabs = tabRepository.findAllByUserIdWithTabDataOrderByDisplayOrderAsc(userId);
+
+        // Group children by parent id; the queries are already ordered so appending keeps display order
+        Map<UUID, List<Tab>> tabsByPage = new HashMap<>();
+        for (Tab tab : tabs) {
+            tabsByPage.computeIfAbsent(tab.getPageId(), id -> new ArrayList<>()).add(tab);
+        }
+
+        Map<UUID, List<Page>> pagesByProject = new HashMap<>();
+        for (Page page : pages) {
+            page.setTabs(tabsByPage.getOrDefault(page.getId(), new ArrayList<>()));
+            pagesByProject.computeIfAbsent(page.getProjectId(), id -> new ArrayList<>()).add(page);
+        }
+
         for (Project project : projects) {
-            List<Page> pages = pageRepository.findByProjectIdOrderByDisplayOrderAsc(project.getId());
-            
-            // Load tabs for each page
-            for (Page page : pages) {
-                List<Tab> tabs = tabRepository.findByPageIdOrderByDisplayOrderAsc(page.getId());
-                page.setTabs(tabs);
+            project.setPages(pagesByProject.getOrDefault(project.getId(), new ArrayList<>()));
+        }
+
+        return projects;
+    }
+
+    /**
+     * Stream the workspace tree as JSON straight to the output, in the same shape as
+     * getAllWorkspaceData. Projects are read in keyset-paged batches, each in its own short
+     * read-only transaction, and written after that transaction has returned its connection:
+     * memory stays bounded by the batch size, and a slow client never holds a pooled connection.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void streamWorkspaceData(Long userId, OutputStream out) throws IOException {
+        TransactionTemplate readBatch = new TransactionTemplate(transactionManager);
+        readBatch.setReadOnly(true);
+
+        // Under open-in-view the request's EntityManager is bound to this thread and would keep the
+        // first connection it takes until the response is done; set it aside so every batch gets a
+        // fresh EntityManager that releases its connection when the batch's transaction ends
+        Object openInView = TransactionSynchronizationManager.unbindResourceIfPossible(entityManagerFactory);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("projects");
+
+            List<Project> projects = readBatch.execute(status -> loadProjectBatch(userId, null));
+            while (!projects.isEmpty()) {
+                // Detached by now, with pages, tabs and tab data already attached
+                for (Project project : projects) {
+                    generator.writeObject(project);
+                }
+                generator.flush();
+
+                Project last = projects.get(projects.size() - 1);
+                projects = readBatch.execute(status -> loadProjectBatch(userId, last));
+            }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } finally {
+            if (openInView != null) {
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, openInView);
             }
-            
-            project.setPages(pages);
         }
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("projects", projects);
-        
-        return result;
+    }
+
+    /**
+     * The batch of projects after the given one (from the start when null), with their pages and
+     * tabs loaded in one query per level
+     */
+    private List<Project> loadProjectBatch(Long userId, Project after) {
+        PageRequest batch = PageRequest.of(0, streamBatchSize);
+        List<Project> projects = after == null
+            ? projectRepository.findFirstBatchByUserId(userId, batch)
+            : projectRepository.findNextBatchByUserId(userId, after.getDisplayOrder(), after.getId(), batch);
+        if (projects.isEmpty()) {
+            return projects;
+        }
+
+        List<UUID> projectIds = projects.stream().map(Project::getId).toList();
+        List<Page> pages = pageRepository.findByProjectIdInOrderByDisplayOrderAsc(projectIds);
+        List<Tab> tabs = pages.isEmpty()
+            ? List.of()
+            : tabRepository.findByPageIdInWithTabDataOrderByDisplayOrderAsc(pages.stream().map(Page::getId).toList());
+
+        Map<UUID, List<Tab>> tabsByPage = new HashMap<>();
+        for (Tab tab : tabs) {
+            tabsByPage.computeIfAbsent(tab.getPageId(), id -> new ArrayList<>()).add(tab);
+        }
+        Map<UUID, List<Page>> pagesByProject = new HashMap<>();
+        for (Page page : pages) {
+            page.setTabs(tabsByPage.getOrDefault(page.getId(), new ArrayList<>()));
+            pagesByProject.computeIfAbsent(page.getProjectId(), id -> new ArrayList<>()).add(page);
+        }
+        for (Project project : projects) {
+            project.setPages(pagesByProject.getOrDefault(project.getId(), new ArrayList<>()));
+        }
+
+        return projects;
     }
     
     public void initializeUserWorkspace(Long userId) {
@@ -795,85 +1080,72 @@ public class WorkspaceDataService {
     // ==================== ACTIVE STATE MANAGEMENT ====================
     
     /**
-     * Update active project for a user
+     * Update active project for a user; the cursor follows to that project's remembered page and tab
      */
     public void updateActiveProject(UUID projectId, Long userId) {
-        Project project = projectRepository.findById(projectId)
-            .orElseThrow(() -> new RuntimeException("Project not found"));
-            
-        if (!project.getUserId().equals(userId)) {
-            throw new RuntimeException("Unauthorized access to project");
+        if (activeStateRepository.activateProject(userId, projectId) == 0) {
+            throw new RuntimeException("Project not found or unauthorized access to project");
         }
-        
-        // Deactivate all other projects for this user
-        List<Project> userProjects = projectRepository.findByUserIdOrderByDisplayOrderAsc(userId);
-        for (Project p : userProjects) {
-            if (p.getIsActive()) {
-                p.setIsActive(false);
-                projectRepository.save(p);
-            }
-        }
-        
-        // Activate the selected project
-        project.setIsActive(true);
-        projectRepository.save(project);
     }
     
     /**
-     * Update active page within a project
+     * Update active page within a project; the cursor follows to that page's remembered tab
      */
     public void updateActivePage(UUID pageId, Long userId) {
-        Page page = pageRepository.findById(pageId)
-            .orElseThrow(() -> new RuntimeException("Page not found"));
-            
-        // Verify page belongs to user's project
-        Project project = projectRepository.findById(page.getProjectId())
-            .orElseThrow(() -> new RuntimeException("Project not found"));
-            
-        if (!project.getUserId().equals(userId)) {
-            throw new RuntimeException("Unauthorized access to page");
+        if (activeStateRepository.activatePage(userId, pageId) == 0) {
+            throw new RuntimeException("Page not found or unauthorized access to page");
         }
+    }
+    
+    /**
+     * Get the last active state for a user (project, page, tab) from their cursor row
+     */
+    public Map<String, Object> getLastActiveState(Long userId) {
+        Map<String, Object> activeState = new HashMap<>();
         
-        // Deactivate all other pages in this project
-        List<Page> projectPages = pageRepository.findByProjectIdOrderByDisplayOrderAsc(page.getProjectId());
-        for (Page p : projectPages) {
-            if (p.getIsActive()) {
-                p.setIsActive(false);
-                pageRepository.save(p);
+        ActiveState state = activeStateRepository.findById(userId).orElse(null);
+        if (state == null) {
+            state = backfillActiveState(userId);
+        }
+        
+        if (state.getActiveProjectId() != null) {
+            activeState.put("activeProjectId", state.getActiveProjectId());
+            if (state.getActivePageId() != null) {
+                activeState.put("activePageId", state.getActivePageId());
+                if (state.getActiveTabId() != null) {
+                    activeState.put("activeTabId", state.getActiveTabId());
+                }
             }
         }
         
-        // Activate the selected page
-        page.setIsActive(true);
-        pageRepository.save(page);
+        return activeState;
     }
     
     /**
-     * Get the last active state for a user (project, page, tab)
+     * Users who have not switched anything since the cursor table was added: derive the state from
+     * the is_active flags once and store it
      */
-    public Map<String, Object> getLastActiveState(Long userId) {
-        Map<String, Object> activeState = new HashMap<>();
+    private ActiveState backfillActiveState(Long userId) {
+        ActiveState state = new ActiveState();
+        state.setUserId(userId);
         
-        // Find active project
         Project activeProject = projectRepository.findByUserIdAndIsActiveTrue(userId);
         if (activeProject != null) {
-            activeState.put("activeProjectId", activeProject.getId());
+            state.setActiveProjectId(activeProject.getId());
             
-            // Find active page within the active project
             Page activePage = pageRepository.findByProjectIdAndIsActiveTrue(activeProject.getId());
             if (activePage != null) {
-                activeState.put("activePageId", activePage.getId());
+                state.setActivePageId(activePage.getId());
                 
-                // Find active tab within the active page
                 List<Tab> activeTabs = tabRepository.findActiveTabsByPageId(activePage.getId());
-                Tab activeTab = activeTabs.isEmpty() ? null : activeTabs.get(0);
-                if (activeTab != null) {
-                    activeState.put("activeTabId", activeTab.getId());
+                if (!activeTabs.isEmpty()) {
+                    state.setActiveTabId(activeTabs.get(0).getId());
                 }
             }
         }
         
-        return activeState;
+        activeStateRepository.insertIfAbsent(userId, state.getActiveProjectId(), state.getActivePageId(), state.getActiveTabId());
+        return state;
     }
     
     /**
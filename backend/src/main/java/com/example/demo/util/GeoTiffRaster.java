@@ -0,0 +1,634 @@
+package com.example.demo.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only RGB view of a north-up GeoTIFF in EPSG:4326, memory-mapped once.
+ *
+ * Uncompressed rasters (strips or tiles, chunky or planar) are read straight from the mapped
+ * file. Compressed ones (LZW, Deflate, PackBits, with or without horizontal predictor) are
+ * decoded once into a raw RGB cache file next to the other temp files and that file is
+ * mapped instead, so every lookup is plain memory access either way.
+ *
+ * Coordinates map to pixels the way rasterio's dataset.index does: the affine transform from
+ * ModelTransformation or ModelTiepoint + ModelPixelScale, floored.
+ */
+public final class GeoTiffRaster {
+
+    // Mapped regions are limited to 2 GB each; split larger files
+    private static final long CHUNK_SIZE = 1L << 30;
+
+    private static final int COMPRESSION_NONE = 1;
+    private static final int COMPRESSION_LZW = 5;
+    private static final int COMPRESSION_DEFLATE = 8;
+    private static final int COMPRESSION_ADOBE_DEFLATE = 32946;
+    private static final int COMPRESSION_PACKBITS = 32773;
+
+    private static final int RASTER_PIXEL_IS_POINT = 2;
+    private static final int EPSG_WGS84 = 4326;
+
+    private final int width;
+    private final int height;
+
+    // Affine transform without rotation: lon = originX + col * pixelWidth, lat = originY + row * pixelHeight
+    private final double originX;
+    private final double originY;
+    private final double pixelWidth;
+    private final double pixelHeight;
+
+    // Where pixel (row, col) band b lives inside the mapped data
+    private final int blockWidth;
+    private final int blockHeight;
+    private final int blocksAcross;
+    private final int blocksPerPlane;
+    private final long[] blockOffsets;
+    private final int pixelStride;
+    private final boolean planar;
+
+    private final MappedByteBuffer[] chunks;
+
+    private GeoTiffRaster(int width, int height, double[] transform, int blockWidth, int blockHeight,
+                          long[] blockOffsets, int pixelStride, boolean planar, MappedByteBuffer[] chunks) {
+        this.width = width;
+        this.height = height;
+        this.originX = transform[0];
+        this.pixelWidth = transform[1];
+        this.originY = transform[2];
+        this.pixelHeight = transform[3];
+        this.blockWidth = blockWidth;
+        this.blockHeight = blockHeight;
+        this.blocksAcross = (width + blockWidth - 1) / blockWidth;
+        this.blocksPerPlane = blocksAcross * ((height + blockHeight - 1) / blockHeight);
+        this.blockOffsets = blockOffsets;
+        this.pixelStride = pixelStride;
+        this.planar = planar;
+        this.chunks = chunks;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Pixel {row, col} containing the coordinate; may lie outside the raster
+     */
+    public long[] index(double longitude, double latitude) {
+        // rasterio nudges by one epsilon so points on a pixel edge land in the lower-right pixel consistently
+        double epsilon = Math.ulp(1.0);
+        long col = (long) Math.floor((longitude + epsilon - originX) / pixelWidth);
+        long row = (long) Math.floor((latitude - epsilon - originY) / pixelHeight);
+        return new long[] {row, col};
+    }
+
+    /**
+     * {longitude, latitude} of the centre of pixel (row, col)
+     */
+    public double[] pixelCentre(long row, long col) {
+        return new double[] {originX + (col + 0.5) * pixelWidth, originY + (row + 0.5) * pixelHeight};
+    }
+
+    /**
+     * Mean R, G, B (truncated to int, as numpy's int(mean)) over the window of the given radius
+     * around the coordinate, clipped to the raster; null when the window is entirely outside it
+     */
+    public int[] averageRgb(double longitude, double latitude, int radius) {
+        long[] pixel = index(longitude, latitude);
+        long rowStart = Math.max(pixel[0] - radius, 0);
+        long rowEnd = Math.min(pixel[0] + radius + 1, height);
+        long colStart = Math.max(pixel[1] - radius, 0);
+        long colEnd = Math.min(pixel[1] + radius + 1, width);
+        if (rowStart >= rowEnd || colStart >= colEnd) {
+            return null;
+        }
+
+        long[] sums = new long[3];
+        for (int row = (int) rowStart; row < rowEnd; row++) {
+            for (int col = (int) colStart; col < colEnd; col++) {
+                for (int band = 0; band < 3; band++) {
+                    sums[band] += byteAt(position(row, col, band)) & 0xff;
+                }
+            }
+        }
+        long count = (rowEnd - rowStart) * (colEnd - colStart);
+        return new int[] {(int) (sums[0] / count), (int) (sums[1] / count), (int) (sums[2] / count)};
+    }
+
+    /**
+     * R, G, B of every pixel in the row, packed as 3 * width bytes
+     */
+    public void readRow(int row, byte[] rgb) {
+        for (int col = 0; col < width; col++) {
+            for (int band = 0; band < 3; band++) {
+                rgb[col * 3 + band] = byteAt(position(row, col, band));
+            }
+        }
+    }
+
+    private long position(int row, int col, int band) {
+        int block = (row / blockHeight) * blocksAcross + col / blockWidth;
+        long inBlock = (long) (row % blockHeight) * blockWidth + col % blockWidth;
+        if (planar) {
+            return blockOffsets[band * blocksPerPlane + block] + inBlock;
+        }
+        return blockOffsets[block] + inBlock * pixelStride + band;
+    }
+
+    private byte byteAt(long position) {
+        return chunks[(int) (position / CHUNK_SIZE)].get((int) (position % CHUNK_SIZE));
+    }
+
+    // ==================== OPENING ====================
+
+    /**
+     * Parse and map a GeoTIFF; compressed rasters are decoded into cacheDirectory on first open
+     */
+    public static GeoTiffRaster open(Path path, Path cacheDirectory) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            TiffDirectory directory = TiffDirectory.read(channel);
+
+            int width = (int) directory.getLong(256);
+            int height = (int) directory.getLong(257);
+            int samplesPerPixel = (int) directory.getLong(277, 1);
+            int compression = (int) directory.getLong(259, COMPRESSION_NONE);
+            int predictor = (int) directory.getLong(317, 1);
+            boolean planar = directory.getLong(284, 1) == 2;
+
+            if (samplesPerPixel < 3) {
+                throw new IOException("GeoTIFF needs at least 3 bands (R, G, B), found " + samplesPerPixel);
+            }
+            for (long bits : directory.getLongs(258)) {
+                if (bits != 8) {
+                    throw new IOException("Only 8-bit bands are supported, found " + bits);
+                }
+            }
+            if (directory.getLong(339, 1) != 1) {
+                throw new IOException("Only unsigned integer samples are supported");
+            }
+            checkGeographicWgs84(directory);
+            double[] transform = readTransform(directory);
+
+            boolean tiled = directory.has(322);
+            int blockWidth = tiled ? (int) directory.getLong(322) : width;
+            int blockHeight = tiled ? (int) directory.getLong(323) : (int) Math.min(directory.getLong(278, height), height);
+            long[] offsets = directory.getLongs(tiled ? 324 : 273);
+            long[] byteCounts = directory.getLongs(tiled ? 325 : 279);
+
+            if (compression == COMPRESSION_NONE) {
+                return new GeoTiffRaster(width, height, transform, blockWidth, blockHeight, offsets,
+                    planar ? 1 : samplesPerPixel, planar, map(channel, channel.size()));
+            }
+
+            Path decoded = decodeToCache(channel, path, cacheDirectory, width, height, samplesPerPixel, planar,
+                compression, predictor, tiled, blockWidth, blockHeight, offsets, byteCounts);
+            try (FileChannel decodedChannel = FileChannel.open(decoded, StandardOpenOption.READ)) {
+                return new GeoTiffRaster(width, height, transform, width, height, new long[] {0}, 3, false,
+                    map(decodedChannel, decodedChannel.size()));
+            }
+        }
+    }
+
+    /**
+     * Map a whole file read-only as consecutive regions of CHUNK_SIZE bytes
+     */
+    static MappedByteBuffer[] map(FileChannel channel, long size) throws IOException {
+        int count = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[Math.max(count, 1)];
+        for (int i = 0; i < count; i++) {
+            long start = i * CHUNK_SIZE;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+        }
+        return chunks;
+    }
+
+    private static void checkGeographicWgs84(TiffDirectory directory) throws IOException {
+        if (!directory.has(34735)) {
+            return;
+        }
+        Map<Integer, Integer> geoKeys = readGeoKeys(directory);
+        Integer geographicType = geoKeys.get(2048);
+        Integer projectedType = geoKeys.get(3072);
+        if (projectedType != null || (geographicType != null && geographicType != EPSG_WGS84)) {
+            throw new IOException("GeoTIFF must be in EPSG:4326, found "
+                + (projectedType != null ? "projected EPSG:" + projectedType : "EPSG:" + geographicType));
+        }
+    }
+
+    /**
+     * GeoKeyDirectory entries whose value is stored inline (all the ones read here)
+     */
+    private static Map<Integer, Integer> readGeoKeys(TiffDirectory directory) throws IOException {
+        long[] keys = directory.getLongs(34735);
+        Map<Integer, Integer> values = new HashMap<>();
+        for (int i = 4; i + 3 < keys.length; i += 4) {
+            if (keys[i + 1] == 0) {
+                values.put((int) keys[i], (int) keys[i + 3]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * {originX, pixelWidth, originY, pixelHeight} of the pixel-corner transform
+     */
+    private static double[] readTransform(TiffDirectory directory) throws IOException {
+        double originX;
+        double originY;
+        double pixelWidth;
+        double pixelHeight;
+        if (directory.has(34264)) {
+            double[] matrix = directory.getDoubles(34264);
+            if (matrix[1] != 0 || matrix[4] != 0) {
+                throw new IOException("Rotated GeoTIFF transforms are not supported");
+            }
+            pixelWidth = matrix[0];
+            originX = matrix[3];
+            pixelHeight = matrix[5];
+            originY = matrix[7];
+        } else if (directory.has(33922) && directory.has(33550)) {
+            double[] tiepoint = directory.getDoubles(33922);
+            double[] scale = directory.getDoubles(33550);
+            pixelWidth = scale[0];
+            pixelHeight = -scale[1];
+            originX = tiepoint[3] - tiepoint[0] * pixelWidth;
+            originY = tiepoint[4] - tiepoint[1] * pixelHeight;
+        } else {
+            throw new IOException("GeoTIFF has no georeferencing (ModelTransformation or ModelTiepoint/ModelPixelScale)");
+        }
+
+        // PixelIsPoint places the model coordinate on the pixel centre; GDAL shifts it to the corner
+        if (directory.has(34735) && Integer.valueOf(RASTER_PIXEL_IS_POINT).equals(readGeoKeys(directory).get(1025))) {
+            originX -= pixelWidth / 2;
+            originY -= pixelHeight / 2;
+        }
+        return new double[] {originX, pixelWidth, originY, pixelHeight};
+    }
+
+    // ==================== DECODING COMPRESSED RASTERS ====================
+
+    /**
+     * Decode every strip or tile once into a raw row-major RGB file; reused while the source is unchanged
+     */
+    private static Path decodeToCache(FileChannel channel, Path source, Path cacheDirectory, int width, int height,
+                                      int samplesPerPixel, boolean planar, int compression, int predictor,
+                                      boolean tiled, int blockWidth, int blockHeight,
+                                      long[] offsets, long[] byteCounts) throws IOException {
+        Files.createDirectories(cacheDirectory);
+        String key = source.getFileName() + "." + Files.size(source) + "." + Files.getLastModifiedTime(source).toMillis() + ".rgb";
+        Path cached = cacheDirectory.resolve(key);
+        long rawSize = (long) width * height * 3;
+        if (Files.exists(cached) && Files.size(cached) == rawSize) {
+            return cached;
+        }
+
+        Path partial = Files.createTempFile(cacheDirectory, key, ".partial");
+        try (FileChannel out = FileChannel.open(partial, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer[] target = new MappedByteBuffer[(int) ((rawSize + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+            for (int i = 0; i < target.length; i++) {
+                long start = i * CHUNK_SIZE;
+                target[i] = out.map(FileChannel.MapMode.READ_WRITE, start, Math.min(CHUNK_SIZE, rawSize - start));
+            }
+
+            int blocksAcross = (width + blockWidth - 1) / blockWidth;
+            int blocksDown = (height + blockHeight - 1) / blockHeight;
+            int planes = planar ? 3 : 1;
+            int stride = planar ? 1 : samplesPerPixel;
+            for (int plane = 0; plane < planes; plane++) {
+                for (int blockRow = 0; blockRow < blocksDown; blockRow++) {
+                    for (int blockCol = 0; blockCol < blocksAcross; blockCol++) {
+                        int block = plane * blocksAcross * blocksDown + blockRow * blocksAcross + blockCol;
+                        // Strips are as wide as the image and the last one may be short; tiles are always full size
+                        int rows = tiled ? blockHeight : Math.min(blockHeight, height - blockRow * blockHeight);
+                        byte[] compressed = new byte[(int) byteCounts[block]];
+                        channel.read(ByteBuffer.wrap(compressed), offsets[block]);
+                        byte[] data = decompress(compressed, compression, rows * blockWidth * stride);
+                        if (predictor == 2) {
+                            undoHorizontalDifferencing(data, blockWidth, rows, stride);
+                        } else if (predictor != 1) {
+                            throw new IOException("Unsupported TIFF predictor: " + predictor);
+                        }
+
+                        for (int r = 0; r < rows && blockRow * blockHeight + r < height; r++) {
+                            int row = blockRow * blockHeight + r;
+                            for (int c = 0; c < blockWidth && blockCol * blockWidth + c < width; c++) {
+                                int col = blockCol * blockWidth + c;
+                                long pixel = ((long) row * width + col) * 3;
+                                int source0 = (r * blockWidth + c) * stride;
+                                if (planar) {
+                                    put(target, pixel + plane, data[source0]);
+                                } else {
+                                    for (int band = 0; band < 3; band++) {
+                                        put(target, pixel + band, data[source0 + band]);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            for (MappedByteBuffer buffer : target) {
+                buffer.force();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return cached;
+    }
+
+    private static void put(MappedByteBuffer[] target, long position, byte value) {
+        target[(int) (position / CHUNK_SIZE)].put((int) (position % CHUNK_SIZE), value);
+    }
+
+    private static byte[] decompress(byte[] compressed, int compression, int expectedSize) throws IOException {
+        switch (compression) {
+            case COMPRESSION_LZW:
+                return lzwDecode(compressed, expectedSize);
+            case COMPRESSION_DEFLATE:
+            case COMPRESSION_ADOBE_DEFLATE:
+                return inflate(compressed, expectedSize);
+            case COMPRESSION_PACKBITS:
+                return packBitsDecode(compressed, expectedSize);
+            default:
+                throw new IOException("Unsupported TIFF compression: " + compression);
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int expectedSize) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] out = new byte[expectedSize];
+            int length = 0;
+            while (length < expectedSize && !inflater.finished()) {
+                int read = inflater.inflate(out, length, expectedSize - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            return out;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt Deflate block in GeoTIFF", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] packBitsDecode(byte[] compressed, int expectedSize) {
+        byte[] out = new byte[expectedSize];
+        int in = 0;
+        int length = 0;
+        while (in < compressed.length && length < expectedSize) {
+            int header = compressed[in++];
+            if (header >= 0) {
+                int count = Math.min(header + 1, Math.min(expectedSize - length, compressed.length - in));
+                System.arraycopy(compressed, in, out, length, count);
+                in += header + 1;
+                length += count;
+            } else if (header != -128 && in < compressed.length) {
+                int count = Math.min(1 - header, expectedSize - length);
+                byte value = compressed[in++];
+                for (int i = 0; i < count; i++) {
+                    out[length++] = value;
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * TIFF flavour of LZW: MSB-first codes of 9 to 12 bits, widening one code early
+     */
+    private static byte[] lzwDecode(byte[] compressed, int expectedSize) {
+        final int clearCode = 256;
+        final int endCode = 257;
+        byte[][] table = new byte[4096][];
+        for (int i = 0; i < 256; i++) {
+            table[i] = new byte[] {(byte) i};
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(expectedSize);
+        int next = 258;
+        int codeWidth = 9;
+        long bitBuffer = 0;
+        int bitCount = 0;
+        int in = 0;
+        byte[] previous = null;
+
+        while (out.size() < expectedSize) {
+            while (bitCount < codeWidth) {
+                if (in >= compressed.length) {
+                    return padded(out, expectedSize);
+                }
+                bitBuffer = (bitBuffer << 8) | (compressed[in++] & 0xff);
+                bitCount += 8;
+            }
+            int code = (int) ((bitBuffer >>> (bitCount - codeWidth)) & ((1 << codeWidth) - 1));
+            bitCount -= codeWidth;
+
+            if (code == endCode) {
+                break;
+            }
+            if (code == clearCode) {
+                next = 258;
+                codeWidth = 9;
+                previous = null;
+                continue;
+            }
+
+            byte[] entry;
+            if (previous == null) {
+                entry = table[code];
+            } else {
+                entry = code < next ? table[code] : null;
+                byte first = entry != null ? entry[0] : previous[0];
+                if (next < table.length) {
+                    byte[] added = new byte[previous.length + 1];
+                    System.arraycopy(previous, 0, added, 0, previous.length);
+                    added[previous.length] = first;
+                    table[next++] = added;
+                    if (entry == null) {
+                        entry = added;
+                    }
+                }
+                if (next >= (1 << codeWidth) - 1 && codeWidth < 12) {
+                    codeWidth++;
+                }
+            }
+            if (entry == null) {
+                break;
+            }
+            out.write(entry, 0, Math.min(entry.length, expectedSize - out.size()));
+            previous = entry;
+        }
+        return padded(out, expectedSize);
+    }
+
+    private static byte[] padded(ByteArrayOutputStream out, int expectedSize) {
+        byte[] bytes = out.toByteArray();
+        return bytes.length == expectedSize ? bytes : java.util.Arrays.copyOf(bytes, expectedSize);
+    }
+
+    private static void undoHorizontalDifferencing(byte[] data, int blockWidth, int rows, int stride) {
+        int rowLength = blockWidth * stride;
+        for (int r = 0; r < rows; r++) {
+            int start = r * rowLength;
+            for (int i = start + stride; i < start + rowLength; i++) {
+                data[i] += data[i - stride];
+            }
+        }
+    }
+
+    // ==================== TIFF STRUCTURE ====================
+
+    /**
+     * The first image file directory of a classic TIFF or BigTIFF, values read on demand
+     */
+    private static final class TiffDirectory {
+        private final FileChannel channel;
+        private final ByteOrder order;
+        private final boolean bigTiff;
+        private final Map<Integer, long[]> entries = new HashMap<>(); // tag -> {type, count, value or offset}
+
+        private TiffDirectory(FileChannel channel, ByteOrder order, boolean bigTiff) {
+            this.channel = channel;
+            this.order = order;
+            this.bigTiff = bigTiff;
+        }
+
+        static TiffDirectory read(FileChannel channel) throws IOException {
+            ByteBuffer header = readAt(channel, 0, 16, ByteOrder.BIG_ENDIAN);
+            ByteOrder order;
+            if (header.get(0) == 'I' && header.get(1) == 'I') {
+                order = ByteOrder.LITTLE_ENDIAN;
+            } else if (header.get(0) == 'M' && header.get(1) == 'M') {
+                order = ByteOrder.BIG_ENDIAN;
+            } else {
+                throw new IOException("Not a TIFF file");
+            }
+            header.order(order);
+            int version = header.getShort(2) & 0xffff;
+            boolean bigTiff = version == 43;
+            if (version != 42 && !bigTiff) {
+                throw new IOException("Unsupported TIFF version: " + version);
+            }
+
+            TiffDirectory directory = new TiffDirectory(channel, order, bigTiff);
+            long offset = bigTiff ? header.getLong(8) : header.getInt(4) & 0xffffffffL;
+            int countSize = bigTiff ? 8 : 2;
+            int entrySize = bigTiff ? 20 : 12;
+            ByteBuffer countBuffer = readAt(channel, offset, countSize, order);
+            long count = bigTiff ? countBuffer.getLong(0) : countBuffer.getShort(0) & 0xffff;
+            ByteBuffer table = readAt(channel, offset + countSize, (int) (count * entrySize), order);
+            for (int i = 0; i < count; i++) {
+                int base = i * entrySize;
+                int tag = table.getShort(base) & 0xffff;
+                int type = table.getShort(base + 2) & 0xffff;
+                long valueCount = bigTiff ? table.getLong(base + 4) : table.getInt(base + 4) & 0xffffffffL;
+                int valueFieldSize = bigTiff ? 8 : 4;
+                long valueSize = valueCount * typeSize(type);
+                long valueOffset = valueSize <= valueFieldSize
+                    ? offset + countSize + base + (bigTiff ? 12 : 8)
+                    : (bigTiff ? table.getLong(base + 12) : table.getInt(base + 8) & 0xffffffffL);
+                directory.entries.put(tag, new long[] {type, valueCount, valueOffset});
+            }
+            return directory;
+        }
+
+        boolean has(int tag) {
+            return entries.containsKey(tag);
+        }
+
+        long getLong(int tag) throws IOException {
+            if (!has(tag)) {
+                throw new IOException("GeoTIFF is missing required tag " + tag);
+            }
+            return getLongs(tag)[0];
+        }
+
+        long getLong(int tag, long defaultValue) throws IOException {
+            return has(tag) ? getLongs(tag)[0] : defaultValue;
+        }
+
+        long[] getLongs(int tag) throws IOException {
+            long[] entry = entries.get(tag);
+            if (entry == null) {
+                throw new IOException("GeoTIFF is missing required tag " + tag);
+            }
+            int type = (int) entry[0];
+            int count = (int) entry[1];
+            ByteBuffer values = readAt(channel, entry[2], count * typeSize(type), order);
+            long[] result = new long[count];
+            for (int i = 0; i < count; i++) {
+                switch (type) {
+                    case 1, 2, 7 -> result[i] = values.get(i) & 0xff;
+                    case 6 -> result[i] = values.get(i);
+                    case 3 -> result[i] = values.getShort(i * 2) & 0xffff;
+                    case 8 -> result[i] = values.getShort(i * 2);
+                    case 4, 13 -> result[i] = values.getInt(i * 4) & 0xffffffffL;
+                    case 9 -> result[i] = values.getInt(i * 4);
+                    case 16, 17, 18 -> result[i] = values.getLong(i * 8);
+                    default -> throw new IOException("Tag " + tag + " is not an integer (type " + type + ")");
+                }
+            }
+            return result;
+        }
+
+        double[] getDoubles(int tag) throws IOException {
+            long[] entry = entries.get(tag);
+            int type = (int) entry[0];
+            if (type != 12 && type != 11) {
+                long[] integers = getLongs(tag);
+                double[] result = new double[integers.length];
+                for (int i = 0; i < integers.length; i++) {
+                    result[i] = integers[i];
+                }
+                return result;
+            }
+            int count = (int) entry[1];
+            ByteBuffer values = readAt(channel, entry[2], count * typeSize(type), order);
+            double[] result = new double[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = type == 12 ? values.getDouble(i * 8) : values.getFloat(i * 4);
+            }
+            return result;
+        }
+
+        private static int typeSize(int type) {
+            return switch (type) {
+                case 3, 8 -> 2;
+                case 4, 9, 11, 13 -> 4;
+                case 5, 10, 12, 16, 17, 18 -> 8;
+                default -> 1;
+            };
+        }
+
+        private static ByteBuffer readAt(FileChannel channel, long position, int size, ByteOrder order) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(size).order(order);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            return buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Small bounded pool of reusable, non-thread-safe instances (Cipher, MessageDigest, Deflater).
+ *
+ * Unlike a ThreadLocal it keeps reusing instances when every request runs on a new virtual
+ * thread, and it never holds more than capacity idle instances: take() creates one when the
+ * pool is empty, and release() discards one (e.g. Deflater::end) when the pool is full.
+ */
+public class InstancePool<T> {
+
+    private final ArrayBlockingQueue<T> idle;
+    private final Supplier<T> factory;
+    private final Consumer<T> discard;
+
+    public InstancePool(int capacity, Supplier<T> factory, Consumer<T> discard) {
+        this.idle = new ArrayBlockingQueue<>(capacity);
+        this.factory = factory;
+        this.discard = discard;
+    }
+
+    /**
+     * Keeps up to twice the number of CPUs idle; the pooled work is CPU-bound, so more rarely pays off
+     */
+    public InstancePool(Supplier<T> factory, Consumer<T> discard) {
+        this(Runtime.getRuntime().availableProcessors() * 2, factory, discard);
+    }
+
+    /**
+     * An idle instance, or a new one if none is idle; hand it back with release()
+     */
+    public T take() {
+        T instance = idle.poll();
+        return instance != null ? instance : factory.get();
+    }
+
+    /**
+     * Return an instance after use; it must be ready for the next take() (reset by the caller)
+     */
+    public void release(T instance) {
+        if (!idle.offer(instance)) {
+            discard.accept(instance);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.demo.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
@@ -15,6 +16,12 @@ public class JwtUtil {
     private static final String SECRET = "ReplaceWithATrulyRandomBase64StringWithAtLeast64BytesWorthOfData!";
     private static final Key KEY = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
 
+    // (3) parsers are immutable and thread-safe, so build one and reuse it
+    private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(KEY).build();
+
+    // request attribute holding the verified claims, so a token is parsed at most once per request
+    public static final String CLAIMS_ATTRIBUTE = JwtUtil.class.getName() + ".claims";
+
     // 1 day
     private final long expirationMs = 86_400_000L;
 
@@ -29,27 +36,46 @@ public class JwtUtil {
     }
 
     public String getUsernameFromToken(String token) {
-        // (3) use parserBuilder + your Key
-        return Jwts
-            .parserBuilder()
-            .setSigningKey(KEY)
-            .build()
+        return PARSER
             .parseClaimsJws(token)
             .getBody()
             .getSubject();
     }
 
-    public boolean validateToken(String token) {
+    public Claims getClaimsFromToken(String token) {
         try {
-            Jwts
-              .parserBuilder()
-              .setSigningKey(KEY)
-              .build()
-              .parseClaimsJws(token);
-            return true;
+            return PARSER
+              .parseClaimsJws(token)
+              .getBody();
         } catch (JwtException | IllegalArgumentException e) {
             // invalid token
-            return false;
+            return null;
         }
     }
+
+    /**
+     * Verified claims for the request's bearer token, or null if there is no valid token.
+     * The result is stored on the request, so the filter and controllers share one parse.
+     */
+    public Claims getClaimsFromRequest(HttpServletRequest request) {
+        Object cached = request.getAttribute(CLAIMS_ATTRIBUTE);
+        if (cached instanceof Claims claims) {
+            return claims;
+        }
+
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+
+        Claims claims = getClaimsFromToken(authHeader.substring(7));
+        if (claims != null) {
+            request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+        }
+        return claims;
+    }
+
+    public boolean validateToken(String token) {
+        return getClaimsFromToken(token) != null;
+    }
 }
@@ -0,0 +1,87 @@
+package com.example.demo.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Records, per controller operation, a latency timer (api.operation) and the number of SQL
+ * statements Hibernate issued while handling it (api.operation.sql.statements).
+ *
+ * Streaming responses complete on an async dispatch: the sample started on the original
+ * dispatch is kept on the request and recorded when the async dispatch completes; their
+ * statements are not counted.
+ */
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SAMPLE_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".sample";
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod && request.getDispatcherType() == DispatcherType.REQUEST) {
+            request.setAttribute(SAMPLE_ATTRIBUTE, Timer.start(meterRegistry));
+            SqlStatementCounter.start();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The response is produced on another thread, whose queries this thread cannot see
+        SqlStatementCounter.stop();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(handler instanceof HandlerMethod method) || !(request.getAttribute(SAMPLE_ATTRIBUTE) instanceof Timer.Sample sample)) {
+            return;
+        }
+        request.removeAttribute(SAMPLE_ATTRIBUTE);
+        int statements = SqlStatementCounter.stop();
+
+        String controller = controllerName(method);
+        String operation = method.getMethod().getName();
+        int status = response.getStatus();
+        String outcome = ex != null || status >= 500 ? "SERVER_ERROR" : status >= 400 ? "CLIENT_ERROR" : "SUCCESS";
+
+        sample.stop(Timer.builder("api.operation")
+            .description("Controller operation latency")
+            .tag("controller", controller)
+            .tag("operation", operation)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
+
+        if (statements >= 0) {
+            DistributionSummary.builder("api.operation.sql.statements")
+                .description("SQL statements issued by Hibernate per controller operation")
+                .tag("controller", controller)
+                .tag("operation", operation)
+                .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100)
+                .register(meterRegistry)
+                .record(statements);
+        }
+    }
+
+    /**
+     * WorkspaceController -> workspace
+     */
+    private static String controllerName(HandlerMethod method) {
+        String name = method.getBeanType().getSimpleName();
+        if (name.endsWith("Controller")) {
+            name = name.substring(0, name.length() - "Controller".length());
+        }
+        return name.isEmpty() ? name : Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.demo.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed site classification of a raster: one byte (a sediment type id) per cell of
+ * cellPixels x cellPixels raster pixels, in a memory-mapped file, so a lookup is one index
+ * into off-heap memory.
+ *
+ * Layout: a 64-byte little-endian header (magic, version, cell size, raster and grid
+ * dimensions, fingerprint of the inputs) followed by the ids row by row. A file whose
+ * fingerprint does not match the current raster, cell size and sediment table is rebuilt.
+ */
+public final class SiteClassGrid {
+
+    /**
+     * Classifies consecutive raster rows: ids[(row - firstRow) * width + col] for each pixel
+     */
+    @FunctionalInterface
+    public interface BandClassifier {
+        void classifyRows(int firstRow, int rowCount, byte[] ids);
+    }
+
+    private static final long MAGIC = 0x3130444952474353L; // "SCGRID01"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final long CHUNK_SIZE = 1L << 30;
+
+    // Rows classified per task when cells are a single pixel
+    private static final int ROWS_PER_TASK = 64;
+
+    private final int cellPixels;
+    private final int rasterWidth;
+    private final int rasterHeight;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final MappedByteBuffer[] chunks;
+
+    private SiteClassGrid(int cellPixels, int rasterWidth, int rasterHeight, MappedByteBuffer[] chunks) {
+        this.cellPixels = cellPixels;
+        this.rasterWidth = rasterWidth;
+        this.rasterHeight = rasterHeight;
+        this.gridWidth = (rasterWidth + cellPixels - 1) / cellPixels;
+        this.gridHeight = (rasterHeight + cellPixels - 1) / cellPixels;
+        this.chunks = chunks;
+    }
+
+    public int getCellPixels() {
+        return cellPixels;
+    }
+
+    public long getSizeBytes() {
+        return HEADER_SIZE + (long) gridWidth * gridHeight;
+    }
+
+    /**
+     * Sediment id of the cell containing raster pixel (row, col), or -1 outside the raster
+     */
+    public int idAt(long row, long col) {
+        if (row < 0 || col < 0 || row >= rasterHeight || col >= rasterWidth) {
+            return -1;
+        }
+        long position = HEADER_SIZE + (row / cellPixels) * gridWidth + col / cellPixels;
+        return chunks[(int) (position / CHUNK_SIZE)].get((int) (position % CHUNK_SIZE)) & 0xff;
+    }
+
+    /**
+     * Map an existing grid file, or return null if it is missing or was built from other inputs
+     */
+    public static SiteClassGrid open(Path file, int rasterWidth, int rasterHeight, int cellPixels, long fingerprint)
+            throws IOException {
+        if (!Files.isReadable(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            SiteClassGrid grid = new SiteClassGrid(cellPixels, rasterWidth, rasterHeight, null);
+            if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION || header.getInt(12) != cellPixels
+                    || header.getInt(16) != rasterWidth || header.getInt(20) != rasterHeight
+                    || header.getLong(32) != fingerprint || channel.size() != grid.getSizeBytes()) {
+                return null;
+            }
+            return new SiteClassGrid(cellPixels, rasterWidth, rasterHeight, GeoTiffRaster.map(channel, channel.size()));
+        }
+    }
+
+    /**
+     * Classify the whole raster in parallel and write the grid file; each cell takes the id most
+     * of its pixels were classified as (lowest id on ties)
+     */
+    public static SiteClassGrid build(Path file, int rasterWidth, int rasterHeight, int cellPixels, long fingerprint,
+                                      BandClassifier classifier) throws IOException {
+        SiteClassGrid layout = new SiteClassGrid(cellPixels, rasterWidth, rasterHeight, null);
+        long size = layout.getSizeBytes();
+        int gridWidth = layout.gridWidth;
+
+        Files.createDirectories(file.getParent());
+        Path partial = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".partial");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer[] target = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+            for (int i = 0; i < target.length; i++) {
+                long start = i * CHUNK_SIZE;
+                target[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(CHUNK_SIZE, size - start));
+            }
+
+            // Single-pixel cells are classified in bands of rows; larger cells one row of cells per task
+            int rowsPerTask = cellPixels == 1 ? ROWS_PER_TASK : cellPixels;
+            int tasks = (rasterHeight + rowsPerTask - 1) / rowsPerTask;
+            IntStream.range(0, tasks).parallel().forEach(task -> {
+                int firstRow = task * rowsPerTask;
+                int rowCount = Math.min(rowsPerTask, rasterHeight - firstRow);
+                byte[] ids = new byte[rowCount * rasterWidth];
+                classifier.classifyRows(firstRow, rowCount, ids);
+
+                if (cellPixels == 1) {
+                    long base = HEADER_SIZE + (long) firstRow * gridWidth;
+                    for (int i = 0; i < ids.length; i++) {
+                        put(target, base + i, ids[i]);
+                    }
+                    return;
+                }
+                int[][] votes = new int[gridWidth][256];
+                for (int r = 0; r < rowCount; r++) {
+                    for (int col = 0; col < rasterWidth; col++) {
+                        votes[col / cellPixels][ids[r * rasterWidth + col] & 0xff]++;
+                    }
+                }
+                long base = HEADER_SIZE + (long) (firstRow / cellPixels) * gridWidth;
+                for (int cell = 0; cell < gridWidth; cell++) {
+                    int best = 0;
+                    for (int id = 1; id < 256; id++) {
+                        if (votes[cell][id] > votes[cell][best]) {
+                            best = id;
+                        }
+                    }
+                    put(target, base + cell, (byte) best);
+                }
+            });
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(0, MAGIC);
+            header.putInt(8, VERSION);
+            header.putInt(12, cellPixels);
+            header.putInt(16, rasterWidth);
+            header.putInt(20, rasterHeight);
+            header.putInt(24, gridWidth);
+            header.putInt(28, layout.gridHeight);
+            header.putLong(32, fingerprint);
+            for (int i = 0; i < HEADER_SIZE; i++) {
+                put(target, i, header.get(i));
+            }
+            for (MappedByteBuffer buffer : target) {
+                buffer.force();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(file, rasterWidth, rasterHeight, cellPixels, fingerprint);
+    }
+
+    private static void put(MappedByteBuffer[] target, long position, byte value) {
+        target[(int) (position / CHUNK_SIZE)].put((int) (position % CHUNK_SIZE), value);
+    }
+}
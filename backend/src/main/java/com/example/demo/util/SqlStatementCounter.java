@@ -0,0 +1,52 @@
+package com.example.demo.util;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between start() and stop(),
+ * so request metrics can report statements per operation without logging every statement.
+ * Inside a sampled trace the SQL text is also added to the current span as an event.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    private final transient Tracer tracer;
+
+    public SqlStatementCounter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Begin counting on this thread, discarding any earlier count
+     */
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * Stop counting on this thread and return the statements seen since start(), or -1 if not started
+     */
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? -1 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        Span span = tracer.currentSpan();
+        if (span != null && !span.isNoop()) {
+            span.event(sql);
+        }
+        return sql;
+    }
+}
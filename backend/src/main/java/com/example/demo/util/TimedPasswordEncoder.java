@@ -0,0 +1,37 @@
+package com.example.demo.util;
+
+import com.example.demo.service.CryptoMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Times a PasswordEncoder (BCrypt) as crypto.operation{target=password}; every login, register
+ * and tab unlock pays this cost, so it is worth watching when the work factor changes
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, CryptoMetrics cryptoMetrics) {
+        this.delegate = delegate;
+        this.encodeTimer = cryptoMetrics.timer("password", "bcrypt-encode");
+        this.matchesTimer = cryptoMetrics.timer("password", "bcrypt-matches");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encodeTimer.record(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return Boolean.TRUE.equals(matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
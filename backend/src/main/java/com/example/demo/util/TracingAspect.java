@@ -0,0 +1,80 @@
+package com.example.demo.util;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.aop.framework.AopProxyUtils;
+
+/**
+ * Child spans under the HTTP request span for service methods, repository queries and crypto
+ * (tab data / API key encryption and BCrypt), named like "WorkspaceDataService.patchTabData".
+ *
+ * A span is only opened inside a sampled trace, so unsampled requests and background work
+ * pay one current-span lookup per call.
+ */
+@Aspect
+public class TracingAspect {
+
+    private final Tracer tracer;
+
+    public TracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Pointcut("within(com.example.demo.service.TabDataEncryptionService)"
+        + " || within(com.example.demo.service.ApiKeyEncryptionService)"
+        + " || execution(* org.springframework.security.crypto.password.PasswordEncoder+.*(..))")
+    void crypto() {
+    }
+
+    @Pointcut("within(com.example.demo.service..*) && @within(org.springframework.stereotype.Service)")
+    void service() {
+    }
+
+    @Pointcut("execution(* org.springframework.data.repository.Repository+.*(..))")
+    void repository() {
+    }
+
+    @Around("crypto() && execution(public * *(..))")
+    public Object traceCrypto(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "crypto", joinPoint.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    @Around("service() && !crypto() && execution(public * *(..))")
+    public Object traceService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "service", joinPoint.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    @Around("repository()")
+    public Object traceRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Inherited methods (save, findById) are declared on CrudRepository; name them after the repository
+        Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(joinPoint.getThis());
+        Class<?> owner = interfaces.length > 0 ? interfaces[0] : joinPoint.getSignature().getDeclaringType();
+        return trace(joinPoint, "repository", owner.getSimpleName());
+    }
+
+    private Object trace(ProceedingJoinPoint joinPoint, String component, String owner) throws Throwable {
+        Span parent = tracer.currentSpan();
+        if (parent == null || parent.isNoop()) {
+            return joinPoint.proceed();
+        }
+
+        Span span = tracer.nextSpan(parent)
+            .name(owner + "." + joinPoint.getSignature().getName())
+            .tag("component", component)
+            .start();
+        Tracer.SpanInScope scope = tracer.withSpan(span);
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            scope.close();
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Switching the active tab is one SQL statement, moves the user's project/page/tab cursor and
+ * keeps the is_active flags of tabs, pages and projects in step with it.
+ */
+class ActiveStateTest extends WorkspaceApiTestSupport {
+
+    @Test
+    void activatingATabIsOneStatementAndMovesTheCursor() throws Exception {
+        String token = newUser();
+        String projectA = createProject(token, "A");
+        String pageA = createPage(token, projectA, "A1");
+        String tabA = createTab(token, pageA, "A1 tab");
+        String projectB = createProject(token, "B");
+        String pageB1 = createPage(token, projectB, "B1");
+        createTab(token, pageB1, "B1 tab");
+        String pageB2 = createPage(token, projectB, "B2");
+        String tabB2 = createTab(token, pageB2, "B2 tab 1");
+        createTab(token, pageB2, "B2 tab 2");
+
+        send("PUT", "/api/workspace/projects/" + projectA + "/active", token, null);
+        send("PUT", "/api/workspace/pages/" + pageA + "/active", token, null);
+        // Warm-up: the caller's principal is cached after the first authenticated request
+        send("PUT", "/api/workspace/tabs/" + tabA + "/active", token, null);
+
+        long statements = statementsDuring(() -> send("PUT", "/api/workspace/tabs/" + tabB2 + "/active", token, null));
+        assertEquals(1, statements, "statements for a tab switch");
+
+        JsonNode state = send("GET", "/api/workspace/active-state", token, null);
+        assertEquals(projectB, state.get("activeProjectId").asText());
+        assertEquals(pageB2, state.get("activePageId").asText());
+        assertEquals(tabB2, state.get("activeTabId").asText());
+
+        JsonNode projects = send("GET", "/api/workspace/data", token, null).get("projects");
+        assertEquals(List.of(projectB), activeIds(projects));
+        for (JsonNode project : projects) {
+            if (project.get("id").asText().equals(projectB)) {
+                assertEquals(List.of(pageB2), activeIds(project.get("pages")));
+            }
+            for (JsonNode page : project.get("pages")) {
+                // Every page remembers one tab; B2's is the one just activated
+                List<String> activeTabs = activeIds(page.get("tabs"));
+                assertEquals(1, activeTabs.size(), "active tabs on page " + page.get("name").asText());
+                if (page.get("id").asText().equals(pageB2)) {
+                    assertEquals(List.of(tabB2), activeTabs);
+                }
+            }
+        }
+    }
+
+    @Test
+    void activatingAPageMovesTheProjectFlag() throws Exception {
+        String token = newUser();
+        String projectA = createProject(token, "A");
+        createPage(token, projectA, "A1");
+        String projectB = createProject(token, "B");
+        String pageB = createPage(token, projectB, "B1");
+
+        send("PUT", "/api/workspace/projects/" + projectA + "/active", token, null);
+        send("PUT", "/api/workspace/pages/" + pageB + "/active", token, null);
+
+        JsonNode state = send("GET", "/api/workspace/active-state", token, null);
+        assertEquals(projectB, state.get("activeProjectId").asText());
+        assertEquals(pageB, state.get("activePageId").asText());
+        assertEquals(List.of(projectB), activeIds(send("GET", "/api/workspace/data", token, null).get("projects")));
+    }
+
+    private static List<String> activeIds(JsonNode items) {
+        return StreamSupport.stream(items.spliterator(), false)
+            .filter(item -> item.get("isActive").asBoolean())
+            .map(item -> item.get("id").asText())
+            .toList();
+    }
+}
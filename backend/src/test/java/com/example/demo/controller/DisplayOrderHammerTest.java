@@ -0,0 +1,220 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.DisplayOrderService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Random inserts, moves, block moves and deletes of tabs and pages, checking the order the
+ * server returns against an in-memory list after every step. The moves favour the same slot so
+ * neighbouring ranks run out of room and the rebalancing paths of DisplayOrderService run too.
+ * A concurrent case has several clients reorder one page while the scheduled rebalancer runs.
+ */
+class DisplayOrderHammerTest extends WorkspaceApiTestSupport {
+
+    private static final long SEED = Long.getLong("hammer.seed", 20261018L);
+    private static final int STEPS = Integer.getInteger("hammer.steps", 400);
+
+    private static final int CLIENTS = 4;
+    private static final int REORDERS_PER_CLIENT = 10;
+
+    private final Random random = new Random(SEED);
+
+    @Autowired
+    private DisplayOrderService displayOrderService;
+
+    @Test
+    void tabOrderMatchesModel() throws Exception {
+        String token = newUser();
+        String pageId = createPage(token, createProject(token, "Hammer"), "Tabs");
+        List<String> model = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            model.add(createTab(token, pageId, "Tab " + i));
+        }
+
+        for (int step = 0; step < STEPS; step++) {
+            String operation;
+            int choice = random.nextInt(10);
+            if (choice < 2 || model.size() < 3) {
+                operation = "insert";
+                int position = hotIndex(model.size() + 1);
+                String tabId = send("POST", "/api/workspace/pages/" + pageId + "/tabs", token,
+                    Map.of("name", "Tab s" + step, "tabType", "snow_load", "position", position)).get("id").asText();
+                model.add(Math.min(position, model.size()), tabId);
+            } else if (choice < 3) {
+                operation = "delete";
+                send("DELETE", "/api/workspace/tabs/" + model.remove(random.nextInt(model.size())), token, null);
+            } else if (choice < 8) {
+                operation = "move";
+                move(model, random.nextInt(model.size()), 1, hotIndex(model.size()));
+                send("PUT", "/api/workspace/pages/" + pageId + "/tabs/reorder", token, Map.of("tabIds", model));
+            } else {
+                operation = "block move";
+                int length = 1 + random.nextInt(Math.min(4, model.size() - 1));
+                int from = random.nextInt(model.size() - length + 1);
+                move(model, from, length, random.nextInt(model.size() - length + 1));
+                send("PUT", "/api/workspace/pages/" + pageId + "/tabs/reorder", token, Map.of("tabIds", model));
+            }
+
+            String message = "tabs after step " + step + " (" + operation + "), seed " + SEED;
+            JsonNode tabs = send("GET", "/api/workspace/pages/" + pageId + "/tabs", token, null);
+            assertEquals(model, ids(tabs), message);
+            assertRanksIncrease(tabs, message);
+        }
+    }
+
+    @Test
+    void pageOrderMatchesModel() throws Exception {
+        String token = newUser();
+        List<String> projects = List.of(createProject(token, "Left"), createProject(token, "Right"));
+        List<List<String>> model = List.of(new ArrayList<>(), new ArrayList<>());
+        for (int p = 0; p < projects.size(); p++) {
+            for (int i = 0; i < 5; i++) {
+                model.get(p).add(createPage(token, projects.get(p), "Page " + i));
+            }
+        }
+
+        for (int step = 0; step < STEPS / 2; step++) {
+            int source = random.nextInt(2);
+            List<String> pages = model.get(source);
+            String operation;
+            if (random.nextInt(5) == 0 && pages.size() > 1) {
+                operation = "move to other project";
+                String pageId = pages.remove(random.nextInt(pages.size()));
+                model.get(1 - source).add(pageId);
+                send("PUT", "/api/workspace/pages/" + pageId + "/move", token,
+                    Map.of("newProjectId", projects.get(1 - source)));
+            } else if (pages.size() > 1) {
+                operation = "reorder";
+                move(pages, random.nextInt(pages.size()), 1, hotIndex(pages.size()));
+                send("PUT", "/api/workspace/projects/" + projects.get(source) + "/pages/reorder", token,
+                    Map.of("pageIds", pages));
+            } else {
+                continue;
+            }
+
+            for (int p = 0; p < projects.size(); p++) {
+                String message = "pages of project " + p + " after step " + step + " (" + operation + "), seed " + SEED;
+                JsonNode served = send("GET", "/api/workspace/projects/" + projects.get(p) + "/pages", token, null);
+                assertEquals(model.get(p), ids(served), message);
+                assertRanksIncrease(served, message);
+            }
+        }
+
+        // The whole tree read agrees with the per-project reads
+        JsonNode data = send("GET", "/api/workspace/data", token, null);
+        for (JsonNode project : data.get("projects")) {
+            int p = projects.indexOf(project.get("id").asText());
+            assertEquals(model.get(p), ids(project.get("pages")), "pages of project " + p + " in /data");
+        }
+    }
+
+    @Test
+    void concurrentReordersLeaveOneSubmittedOrder() throws Exception {
+        String token = newUser();
+        String pageId = createPage(token, createProject(token, "Concurrent"), "Tabs");
+        List<String> tabs = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            // Every insert lands at index 1, so the ranks there get crowded and the rebalancer has work
+            String tabId = send("POST", "/api/workspace/pages/" + pageId + "/tabs", token,
+                Map.of("name", "Tab " + i, "tabType", "snow_load", "position", 1)).get("id").asText();
+            tabs.add(Math.min(1, tabs.size()), tabId);
+        }
+
+        List<List<String>> submitted = new ArrayList<>();
+        for (int i = 0; i < CLIENTS * REORDERS_PER_CLIENT; i++) {
+            List<String> order = new ArrayList<>(tabs);
+            Collections.shuffle(order, random);
+            submitted.add(order);
+        }
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch clientsDone = new CountDownLatch(CLIENTS);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                List<List<String>> orders = submitted.subList(c * REORDERS_PER_CLIENT, (c + 1) * REORDERS_PER_CLIENT);
+                results.add(clients.submit(() -> {
+                    try {
+                        start.await();
+                        for (List<String> order : orders) {
+                            send("PUT", "/api/workspace/pages/" + pageId + "/tabs/reorder", token, Map.of("tabIds", order));
+                        }
+                    } finally {
+                        clientsDone.countDown();
+                    }
+                    return null;
+                }));
+            }
+            results.add(clients.submit(() -> {
+                start.await();
+                do {
+                    displayOrderService.rebalanceCrowdedParents();
+                } while (!clientsDone.await(5, TimeUnit.MILLISECONDS));
+                return null;
+            }));
+
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        String message = "tabs after concurrent reorders, seed " + SEED;
+        JsonNode served = send("GET", "/api/workspace/pages/" + pageId + "/tabs", token, null);
+        assertTrue(submitted.contains(ids(served)), message + ": " + ids(served) + " was never submitted");
+        assertRanksIncrease(served, message);
+    }
+
+    /**
+     * Index biased toward 1, so moves keep landing between the same two neighbours
+     */
+    private int hotIndex(int bound) {
+        return random.nextBoolean() ? Math.min(1, bound - 1) : random.nextInt(bound);
+    }
+
+    /**
+     * Move list[from .. from + length - 1] so it starts at index to of the list without it
+     */
+    private static void move(List<String> list, int from, int length, int to) {
+        List<String> block = new ArrayList<>(list.subList(from, from + length));
+        list.subList(from, from + length).clear();
+        list.addAll(Math.min(to, list.size()), block);
+    }
+
+    /**
+     * Display orders are strictly increasing: no ties left behind for the id tie-break to decide
+     */
+    private static void assertRanksIncrease(JsonNode items, String message) {
+        for (int i = 1; i < items.size(); i++) {
+            assertTrue(items.get(i - 1).get("displayOrder").asInt() < items.get(i).get("displayOrder").asInt(),
+                message + ": display order at " + i);
+        }
+    }
+
+    private static List<String> ids(JsonNode items) {
+        List<String> ids = new ArrayList<>();
+        for (JsonNode item : items) {
+            ids.add(item.get("id").asText());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.demo.controller;
+
+import com.example.demo.DemoApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+
+/**
+ * Base for the workspace regression tests: the application against an embedded PostgreSQL
+ * (shared by all test classes), called through MockMvc with the real security filter chain.
+ * Hibernate statistics are on so tests can count the SQL statements a request runs; the
+ * scheduled order rebalancer is pushed out so it does not run in the middle of a count.
+ */
+@SpringBootTest(classes = DemoApplication.class, properties = {
+    "spring.jpa.hibernate.ddl-auto=update",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "app.workspace.order-rebalance-initial-delay-ms=3600000",
+    "app.site-class.grid-enabled=false",
+    "logging.level.root=WARN"
+})
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+abstract class WorkspaceApiTestSupport {
+
+    protected static final String PASSWORD = "Regression-Passw0rd";
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        synchronized (WorkspaceApiTestSupport.class) {
+            if (postgres == null) {
+                postgres = EmbeddedPostgres.builder().start();
+            }
+        }
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    /**
+     * Number of SQL statements prepared while the action runs
+     */
+    protected long statementsDuring(Callable<?> action) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.call();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Register a fresh user and return a bearer token for them
+     */
+    protected String newUser() throws Exception {
+        String email = "regression-" + UUID.randomUUID() + "@example.com";
+        send("POST", "/api/users/register", null, Map.of("email", email, "username", "regression",
+            "password", PASSWORD, "confirmPassword", PASSWORD));
+        return send("POST", "/api/users/login", null, Map.of("email", email, "password", PASSWORD))
+            .get("token").asText();
+    }
+
+    protected String createProject(String token, String name) throws Exception {
+        return send("POST", "/api/workspace/projects", token, Map.of("name", name)).get("id").asText();
+    }
+
+    protected String createPage(String token, String projectId, String name) throws Exception {
+        return send("POST", "/api/workspace/projects/" + projectId + "/pages", token, Map.of("name", name))
+            .get("id").asText();
+    }
+
+    protected String createTab(String token, String pageId, String name) throws Exception {
+        return send("POST", "/api/workspace/pages/" + pageId + "/tabs", token,
+            Map.of("name", name, "tabType", "snow_load")).get("id").asText();
+    }
+
+    /**
+     * Create projects x pages x tabs, each tab with a little data; returns the tab ids
+     */
+    protected List<String> createTree(String token, int projects, int pages, int tabs) throws Exception {
+        List<String> tabIds = new ArrayList<>();
+        for (int p = 0; p < projects; p++) {
+            String projectId = createProject(token, "Project " + p);
+            for (int g = 0; g < pages; g++) {
+                String pageId = createPage(token, projectId, "Page " + g);
+                for (int t = 0; t < tabs; t++) {
+                    String tabId = createTab(token, pageId, "Tab " + t);
+                    send("PUT", "/api/workspace/tabs/" + tabId + "/data/replace/encrypted", token,
+                        Map.of("data", Map.of("snowDefaults", Map.of("location", "Richmond", "slope", t)),
+                            "userPassword", PASSWORD));
+                    tabIds.add(tabId);
+                }
+            }
+        }
+        return tabIds;
+    }
+
+    /**
+     * Send a request and return the parsed JSON body (null for other bodies); fails on a non-2xx status
+     */
+    protected JsonNode send(String method, String path, String token, Object body) throws Exception {
+        MvcResult result = perform(method, path, token, body);
+        int status = result.getResponse().getStatus();
+        String content = result.getResponse().getContentAsString();
+        if (status < 200 || status >= 300) {
+            throw new AssertionError(method + " " + path + " returned " + status + ": " + content);
+        }
+        String contentType = result.getResponse().getContentType();
+        boolean json = contentType != null && contentType.startsWith(MediaType.APPLICATION_JSON_VALUE);
+        return json && !content.isEmpty() ? objectMapper.readTree(content) : null;
+    }
+
+    protected MvcResult perform(String method, String path, String token, Object body) throws Exception {
+        MockHttpServletRequestBuilder builder = request(HttpMethod.valueOf(method), path);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            builder.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsBytes(body));
+        }
+        MvcResult result = mockMvc.perform(builder).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        return result;
+    }
+}
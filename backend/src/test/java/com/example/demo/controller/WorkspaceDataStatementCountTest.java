@@ -0,0 +1,46 @@
+package com.example.demo.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GET /api/workspace/data loads the whole tree in a constant number of statements: a large
+ * workspace must not cost more round trips than a single project with a single tab.
+ */
+class WorkspaceDataStatementCountTest extends WorkspaceApiTestSupport {
+
+    @Test
+    void statementCountDoesNotGrowWithTheTree() throws Exception {
+        String smallUser = newUser();
+        createTree(smallUser, 1, 1, 1);
+        String largeUser = newUser();
+        createTree(largeUser, 3, 4, 5);
+
+        long small = statementsForWorkspaceData(smallUser, 1);
+        long large = statementsForWorkspaceData(largeUser, 3 * 4 * 5);
+
+        assertTrue(small > 0, "statements are counted");
+        assertEquals(small, large, "statements for a 1x1x1 tree vs a 3x4x5 tree");
+    }
+
+    /**
+     * Statements executed by one GET /data, after a warm-up call that checks the tree is complete
+     */
+    private long statementsForWorkspaceData(String token, int expectedTabs) throws Exception {
+        assertEquals(expectedTabs, countTabs(send("GET", "/api/workspace/data", token, null)));
+        return statementsDuring(() -> send("GET", "/api/workspace/data", token, null));
+    }
+
+    private static int countTabs(JsonNode data) {
+        int tabs = 0;
+        for (JsonNode project : data.get("projects")) {
+            for (JsonNode page : project.get("pages")) {
+                tabs += page.get("tabs").size();
+            }
+        }
+        return tabs;
+    }
+}
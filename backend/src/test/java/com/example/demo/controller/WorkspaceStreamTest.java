@@ -0,0 +1,106 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.WorkspaceDataService;
+import com.example.demo.util.JwtUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GET /api/workspace/data?stream=true returns the same tree as the materialized response, and
+ * holds no pooled connection while it writes to the client: each keyset batch is read in its
+ * own short transaction. A batch size of 2 makes every tree here span several batches.
+ */
+@TestPropertySource(properties = "app.workspace.stream-batch-size=2")
+class WorkspaceStreamTest extends WorkspaceApiTestSupport {
+
+    @Autowired
+    private WorkspaceDataService workspaceDataService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void streamedTreeMatchesTheMaterializedOne() throws Exception {
+        String token = newUser();
+        createTree(token, 5, 2, 2);
+
+        JsonNode materialized = send("GET", "/api/workspace/data", token, null);
+        JsonNode streamed = send("GET", "/api/workspace/data?stream=true", token, null);
+
+        assertEquals(5, streamed.get("projects").size());
+        assertEquals(materialized, streamed);
+    }
+
+    @Test
+    void noConnectionIsHeldWhileWriting() throws Exception {
+        String token = newUser();
+        createTree(token, 5, 1, 1);
+        Long userId = userRepository.findByEmail(jwtUtil.getUsernameFromToken(token))
+            .map(User::getId)
+            .orElseThrow();
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        AtomicInteger writes = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        FilterOutputStream client = new FilterOutputStream(body) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                observe();
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                observe();
+                out.flush();
+            }
+
+            private void observe() {
+                writes.incrementAndGet();
+                maxActive.accumulateAndGet(pool.getActiveConnections(), Math::max);
+            }
+        };
+
+        // As on the request thread with open-in-view: a request-scoped EntityManager is bound
+        EntityManagerHolder openInView = new EntityManagerHolder(entityManagerFactory.createEntityManager());
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, openInView);
+        try {
+            workspaceDataService.streamWorkspaceData(userId, client);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            openInView.getEntityManager().close();
+        }
+
+        assertEquals(5, objectMapper.readTree(body.toByteArray()).get("projects").size());
+        assertTrue(writes.get() >= 3, "one write per batch of 2 projects");
+        assertEquals(0, maxActive.get(), "pooled connections in use while writing to the client");
+    }
+}
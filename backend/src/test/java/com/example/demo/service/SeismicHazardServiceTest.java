@@ -0,0 +1,201 @@
+package com.example.demo.service;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.repository.SeismicHazardValueRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SeismicHazardService against an in-process stand-in for the NRCan GraphQL API and an embedded
+ * PostgreSQL: concurrent misses share one upstream request per site designation, loaded values
+ * are stored in seismic_hazard_cache and survive a restart, and a failed load is not cached.
+ * Each test uses its own coordinate so the shared cache does not carry over between them.
+ */
+@SpringBootTest(classes = DemoApplication.class, properties = {
+    "spring.jpa.hibernate.ddl-auto=update",
+    "app.workspace.order-rebalance-initial-delay-ms=3600000",
+    "app.site-class.grid-enabled=false",
+    "logging.level.root=WARN"
+})
+class SeismicHazardServiceTest {
+
+    private static final Pattern DESIGNATION = Pattern.compile("\\{ (\\w+): siteDesignations");
+
+    private static EmbeddedPostgres postgres;
+    private static HttpServer hazardStub;
+
+    private static final AtomicInteger upstreamCalls = new AtomicInteger();
+    private static final AtomicBoolean upstreamFailing = new AtomicBoolean();
+
+    @Autowired
+    private SeismicHazardService seismicHazardService;
+
+    @Autowired
+    private SeismicHazardValueRepository seismicHazardValueRepository;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @DynamicPropertySource
+    static void dependencies(DynamicPropertyRegistry registry) throws IOException {
+        synchronized (SeismicHazardServiceTest.class) {
+            if (postgres == null) {
+                postgres = EmbeddedPostgres.builder().start();
+                hazardStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+                hazardStub.createContext("/graphql", SeismicHazardServiceTest::answer);
+                hazardStub.setExecutor(Executors.newCachedThreadPool());
+                hazardStub.start();
+            }
+        }
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("app.seismic.hazard-url",
+            () -> "http://127.0.0.1:" + hazardStub.getAddress().getPort() + "/graphql");
+    }
+
+    /**
+     * Stub NBC2020 response: a short delay so concurrent misses overlap, then one row of values
+     * derived from the requested designation (or HTTP 500 while upstreamFailing is set)
+     */
+    private static void answer(HttpExchange exchange) throws IOException {
+        upstreamCalls.incrementAndGet();
+        String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Matcher matcher = DESIGNATION.matcher(request);
+        byte[] body;
+        int status;
+        if (upstreamFailing.get() || !matcher.find()) {
+            status = 500;
+            body = "{}".getBytes(StandardCharsets.UTF_8);
+        } else {
+            String designation = matcher.group(1);
+            double[] values = expectedValues(designation);
+            String row = String.format(Locale.ROOT,
+                "{\"sa0p2\":%s,\"sa0p5\":%s,\"sa1p0\":%s,\"sa2p0\":%s,\"sa5p0\":%s,\"sa10p0\":%s,\"pga\":%s}",
+                values[0], values[1], values[2], values[3], values[4], values[5], values[6]);
+            status = 200;
+            body = ("{\"data\":{\"NBC2020\":{\"" + designation + "\":[" + row + "]}}}").getBytes(StandardCharsets.UTF_8);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static double[] expectedValues(String designation) {
+        double offset = SeismicHazardClient.X450.equals(designation) ? 0.05 : 0.0;
+        double[] values = new double[7];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 0.1 * (i + 1) + offset;
+        }
+        return values;
+    }
+
+    @BeforeEach
+    void resetStub() {
+        upstreamCalls.set(0);
+        upstreamFailing.set(false);
+    }
+
+    @Test
+    void concurrentMissesShareOneUpstreamRequestPerDesignation() throws Exception {
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Map<String, Object>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return seismicHazardService.getHazard(49.2827, -123.1207, "C");
+                }));
+            }
+            start.countDown();
+            for (Future<Map<String, Object>> result : results) {
+                Map<String, Object> hazard = result.get(1, TimeUnit.MINUTES);
+                assertValues(expectedValues("C"), hazard.get("sa_site"));
+                assertValues(expectedValues(SeismicHazardClient.X450), hazard.get("sa_x450"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(2, upstreamCalls.get(), "upstream requests for " + callers + " concurrent misses");
+    }
+
+    @Test
+    void storedValuesSurviveARestart() {
+        seismicHazardService.getHazard(45.5017, -73.5673, "D");
+        assertEquals(2, upstreamCalls.get());
+        assertTrue(seismicHazardValueRepository.existsById("D:45502:-73567"), "site class row stored");
+        assertTrue(seismicHazardValueRepository.existsById("X450:45502:-73567"), "X450 row stored");
+
+        // A new instance starts with an empty in-memory cache, as after a restart
+        SeismicHazardService restarted = beanFactory.createBean(SeismicHazardService.class);
+        try {
+            Map<String, Object> hazard = restarted.getHazard(45.5017, -73.5673, "D");
+            assertValues(expectedValues("D"), hazard.get("sa_site"));
+            assertValues(expectedValues(SeismicHazardClient.X450), hazard.get("sa_x450"));
+        } finally {
+            beanFactory.destroyBean(restarted);
+        }
+        assertEquals(2, upstreamCalls.get(), "upstream requests after the restart");
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        upstreamFailing.set(true);
+        assertThrows(RuntimeException.class, () -> seismicHazardService.getHazard(53.5461, -113.4938, "B"));
+        assertEquals(2, upstreamCalls.get());
+        assertFalse(seismicHazardValueRepository.existsById("B:53546:-113494"), "no row for a failed load");
+
+        upstreamFailing.set(false);
+        Map<String, Object> hazard = seismicHazardService.getHazard(53.5461, -113.4938, "B");
+        assertValues(expectedValues("B"), hazard.get("sa_site"));
+        assertEquals(4, upstreamCalls.get(), "the next lookup goes upstream again");
+        assertTrue(seismicHazardValueRepository.existsById("B:53546:-113494"), "row stored once the load succeeds");
+    }
+
+    private static void assertValues(double[] expected, Object actual) {
+        assertArrayEquals(expected, (double[]) actual, 1e-9);
+    }
+}
@@ -0,0 +1,460 @@
+package com.example.demo.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.plugins.tiff.BaselineTIFFTagSet;
+import javax.imageio.plugins.tiff.GeoTIFFTagSet;
+import javax.imageio.plugins.tiff.TIFFDirectory;
+import javax.imageio.plugins.tiff.TIFFField;
+import javax.imageio.plugins.tiff.TIFFTag;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the GeoTIFF fixtures in src/test/resources/geotiff that GeoTiffRasterTest reads, one per
+ * compression and layout GeoTiffRaster handles. Every pixel is sample(row, col, band), so the
+ * test can derive its expected values instead of storing them.
+ *
+ * The compressed fixtures come from the JDK's TIFF writer (big-endian), so they are encoded
+ * independently of the decoders under test. Layouts that writer cannot produce (planar, BigTIFF,
+ * an extra alpha band, the georeferencing variants) are assembled here in little-endian order.
+ * Regenerate from backend/ with:
+ *
+ *   mvn -q test-compile
+ *   java -cp target/test-classes com.example.demo.util.GeoTiffFixtures src/test/resources/geotiff
+ */
+final class GeoTiffFixtures {
+
+    static final int WIDTH = 37;
+    static final int HEIGHT = 23;
+
+    // Larger noisy image so the LZW table fills up and the encoder emits clear codes
+    static final int LARGE_WIDTH = 97;
+    static final int LARGE_HEIGHT = 61;
+
+    // North-west corner of pixel (0, 0) and the pixel size in degrees
+    static final double WEST = -130.0;
+    static final double NORTH = 60.0;
+    static final double PIXEL_WIDTH = 0.5;
+    static final double PIXEL_HEIGHT = 0.25;
+
+    private static final int TILE_SIZE = 16;
+
+    private static final int COMPRESSION_NONE = 1;
+    private static final int COMPRESSION_DEFLATE = 8;
+
+    private GeoTiffFixtures() {
+    }
+
+    /**
+     * Band value (0-255) of a pixel: hashed noise, with a flat grey block that gives PackBits
+     * and LZW long runs to encode
+     */
+    static int sample(int row, int col, int band) {
+        if (band == 3) {
+            return 255;
+        }
+        if (row >= 4 && row < 14 && col >= 12 && col < 24) {
+            return 128;
+        }
+        int hash = row * 73856093 ^ col * 19349663;
+        hash ^= hash >>> 13;
+        hash *= 0x5bd1e995;
+        hash ^= hash >>> 15;
+        return (hash >>> (band * 8)) & 0xff;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "src/test/resources/geotiff");
+        Files.createDirectories(directory);
+
+        // JDK TIFF writer: strips (RowsPerStrip) or 16 x 16 tiles
+        writeWithImageIo(directory.resolve("none-strips.tif"), WIDTH, HEIGHT, null, 5, false, false);
+        writeWithImageIo(directory.resolve("none-tiles.tif"), WIDTH, HEIGHT, null, 0, true, false);
+        writeWithImageIo(directory.resolve("lzw-strips.tif"), WIDTH, HEIGHT, "LZW", 8, false, false);
+        writeWithImageIo(directory.resolve("lzw-predictor-tiles.tif"), WIDTH, HEIGHT, "LZW", 0, true, true);
+        writeWithImageIo(directory.resolve("lzw-large.tif"), LARGE_WIDTH, LARGE_HEIGHT, "LZW", LARGE_HEIGHT, false, false);
+        writeWithImageIo(directory.resolve("zlib-predictor-strips.tif"), WIDTH, HEIGHT, "ZLib", 6, false, true);
+        writeWithImageIo(directory.resolve("deflate-tiles.tif"), WIDTH, HEIGHT, "Deflate", 0, true, false);
+        writeWithImageIo(directory.resolve("packbits-strips.tif"), WIDTH, HEIGHT, "PackBits", 7, false, false);
+
+        // Assembled here; the JDK reader cannot check BigTIFF
+        assemble(directory.resolve("none-planar-strips.tif"), new TiffBuilder(false, 3, true, false, 6)
+            .pixels(COMPRESSION_NONE, false).tiepointGeoreferencing(false));
+        assemble(directory.resolve("deflate-predictor-planar-tiles.tif"), new TiffBuilder(false, 3, true, true, TILE_SIZE)
+            .pixels(COMPRESSION_DEFLATE, true).tiepointGeoreferencing(false));
+        assemble(directory.resolve("bigtiff-rgba-tiles.tif"), new TiffBuilder(true, 4, false, true, TILE_SIZE)
+            .pixels(COMPRESSION_NONE, false).tiepointGeoreferencing(false));
+        assemble(directory.resolve("model-transformation.tif"), new TiffBuilder(false, 3, false, false, HEIGHT)
+            .pixels(COMPRESSION_NONE, false).transformationGeoreferencing());
+        assemble(directory.resolve("pixel-is-point.tif"), new TiffBuilder(false, 3, false, false, HEIGHT)
+            .pixels(COMPRESSION_NONE, false).tiepointGeoreferencing(true));
+        assemble(directory.resolve("projected.tif"), new TiffBuilder(false, 3, false, false, HEIGHT)
+            .pixels(COMPRESSION_NONE, false).projectedGeoreferencing());
+    }
+
+    private static void assemble(Path path, TiffBuilder builder) throws IOException {
+        Files.write(path, builder.build());
+        if (!builder.bigTiff) {
+            checkWithImageIo(path, WIDTH, HEIGHT);
+        }
+    }
+
+    // ==================== JDK TIFF WRITER ====================
+
+    private static void writeWithImageIo(Path path, int width, int height, String compression, int rowsPerStrip,
+                                         boolean tiled, boolean predictor) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                image.setRGB(col, row, sample(row, col, 0) << 16 | sample(row, col, 1) << 8 | sample(row, col, 2));
+            }
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (compression != null) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionType(compression);
+            }
+            if (tiled) {
+                param.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setTiling(TILE_SIZE, TILE_SIZE, 0, 0);
+            }
+
+            TIFFDirectory directory = TIFFDirectory.createFromMetadata(
+                writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), param));
+            BaselineTIFFTagSet baseline = BaselineTIFFTagSet.getInstance();
+            if (!tiled) {
+                directory.addTIFFField(new TIFFField(baseline.getTag(BaselineTIFFTagSet.TAG_ROWS_PER_STRIP), rowsPerStrip));
+            }
+            if (predictor) {
+                directory.addTIFFField(new TIFFField(baseline.getTag(BaselineTIFFTagSet.TAG_PREDICTOR),
+                    BaselineTIFFTagSet.PREDICTOR_HORIZONTAL_DIFFERENCING));
+            }
+            GeoTIFFTagSet geoTiff = GeoTIFFTagSet.getInstance();
+            directory.addTIFFField(new TIFFField(geoTiff.getTag(GeoTIFFTagSet.TAG_MODEL_TIE_POINT), TIFFTag.TIFF_DOUBLE, 6,
+                new double[] {0, 0, 0, WEST, NORTH, 0}));
+            directory.addTIFFField(new TIFFField(geoTiff.getTag(GeoTIFFTagSet.TAG_MODEL_PIXEL_SCALE), TIFFTag.TIFF_DOUBLE, 3,
+                new double[] {PIXEL_WIDTH, PIXEL_HEIGHT, 0}));
+            int[] geoKeys = geoKeys(false, false);
+            char[] geoKeyShorts = new char[geoKeys.length];
+            for (int i = 0; i < geoKeys.length; i++) {
+                geoKeyShorts[i] = (char) geoKeys[i];
+            }
+            directory.addTIFFField(new TIFFField(geoTiff.getTag(GeoTIFFTagSet.TAG_GEO_KEY_DIRECTORY), TIFFTag.TIFF_SHORT,
+                geoKeyShorts.length, geoKeyShorts));
+
+            Files.deleteIfExists(path);
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(path.toFile())) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, directory.getAsMetadata()), param);
+            }
+        } finally {
+            writer.dispose();
+        }
+        checkWithImageIo(path, width, height);
+    }
+
+    /**
+     * Read a fixture back with the JDK's reader, which knows nothing of GeoTiffRaster
+     */
+    private static void checkWithImageIo(Path path, int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(path.toFile());
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int expected = sample(row, col, 0) << 16 | sample(row, col, 1) << 8 | sample(row, col, 2);
+                if ((image.getRGB(col, row) & 0xffffff) != expected) {
+                    throw new IllegalStateException(path + ": pixel " + row + "," + col + " does not read back");
+                }
+            }
+        }
+    }
+
+    /**
+     * GeoKeyDirectory: geographic model in EPSG:4326 (or projected UTM 10N), area or point pixels
+     */
+    private static int[] geoKeys(boolean pixelIsPoint, boolean projected) {
+        int[] modelType = {1024, 0, 1, projected ? 1 : 2};
+        int[] rasterType = {1025, 0, 1, pixelIsPoint ? 2 : 1};
+        int[] crs = projected ? new int[] {3072, 0, 1, 32610} : new int[] {2048, 0, 1, 4326};
+        int[] keys = new int[16];
+        System.arraycopy(new int[] {1, 1, 0, 3}, 0, keys, 0, 4);
+        System.arraycopy(modelType, 0, keys, 4, 4);
+        System.arraycopy(rasterType, 0, keys, 8, 4);
+        System.arraycopy(crs, 0, keys, 12, 4);
+        return keys;
+    }
+
+    // ==================== HAND-ASSEMBLED TIFF ====================
+
+    /**
+     * Little-endian classic TIFF or BigTIFF of WIDTH x HEIGHT, chunky or planar, in strips of
+     * blockSize rows or blockSize x blockSize tiles
+     */
+    private static final class TiffBuilder {
+        private static final int SHORT = 3;
+        private static final int LONG = 4;
+        private static final int DOUBLE = 12;
+        private static final int LONG8 = 16;
+
+        private final boolean bigTiff;
+        private final int samples;
+        private final boolean planar;
+        private final boolean tiled;
+        private final int blockSize;
+        private final Map<Integer, Field> fields = new TreeMap<>();
+        private final List<byte[]> blocks = new ArrayList<>();
+
+        private record Field(int type, long count, byte[] value) {
+        }
+
+        TiffBuilder(boolean bigTiff, int samples, boolean planar, boolean tiled, int blockSize) {
+            this.bigTiff = bigTiff;
+            this.samples = samples;
+            this.planar = planar;
+            this.tiled = tiled;
+            this.blockSize = blockSize;
+
+            shorts(256, WIDTH);
+            shorts(257, HEIGHT);
+            int[] bits = new int[samples];
+            Arrays.fill(bits, 8);
+            shorts(258, bits);
+            shorts(262, 2);
+            shorts(277, samples);
+            shorts(284, planar ? 2 : 1);
+            shorts(339, ones(samples));
+            if (samples == 4) {
+                shorts(338, 2);
+            }
+            if (tiled) {
+                shorts(322, blockSize);
+                shorts(323, blockSize);
+            } else {
+                shorts(278, blockSize);
+            }
+        }
+
+        private static int[] ones(int count) {
+            int[] values = new int[count];
+            Arrays.fill(values, 1);
+            return values;
+        }
+
+        TiffBuilder pixels(int compression, boolean predictor) {
+            shorts(259, compression);
+            if (predictor) {
+                shorts(317, 2);
+            }
+            int blocksAcross = tiled ? (WIDTH + blockSize - 1) / blockSize : 1;
+            int blocksDown = (HEIGHT + blockSize - 1) / blockSize;
+            int blockWidth = tiled ? blockSize : WIDTH;
+            int stride = planar ? 1 : samples;
+            for (int plane = 0; plane < (planar ? samples : 1); plane++) {
+                for (int blockRow = 0; blockRow < blocksDown; blockRow++) {
+                    for (int blockCol = 0; blockCol < blocksAcross; blockCol++) {
+                        // Tiles are always full size (padded with zeros); the last strip is short
+                        int rows = tiled ? blockSize : Math.min(blockSize, HEIGHT - blockRow * blockSize);
+                        byte[] data = new byte[rows * blockWidth * stride];
+                        for (int r = 0; r < rows; r++) {
+                            for (int c = 0; c < blockWidth; c++) {
+                                int row = blockRow * blockSize + r;
+                                int col = blockCol * blockWidth + c;
+                                if (row >= HEIGHT || col >= WIDTH) {
+                                    continue;
+                                }
+                                for (int s = 0; s < stride; s++) {
+                                    data[(r * blockWidth + c) * stride + s] = (byte) sample(row, col, planar ? plane : s);
+                                }
+                            }
+                        }
+                        if (predictor) {
+                            for (int r = 0; r < rows; r++) {
+                                int start = r * blockWidth * stride;
+                                for (int i = start + blockWidth * stride - 1; i >= start + stride; i--) {
+                                    data[i] -= data[i - stride];
+                                }
+                            }
+                        }
+                        blocks.add(compression == COMPRESSION_DEFLATE ? deflate(data) : data);
+                    }
+                }
+            }
+            return this;
+        }
+
+        TiffBuilder tiepointGeoreferencing(boolean pixelIsPoint) {
+            // PixelIsPoint ties the centre of pixel (0, 0), not its corner, to the model coordinate
+            double shiftX = pixelIsPoint ? PIXEL_WIDTH / 2 : 0;
+            double shiftY = pixelIsPoint ? -PIXEL_HEIGHT / 2 : 0;
+            doubles(33922, 0, 0, 0, WEST + shiftX, NORTH + shiftY, 0);
+            doubles(33550, PIXEL_WIDTH, PIXEL_HEIGHT, 0);
+            shorts(34735, geoKeys(pixelIsPoint, false));
+            return this;
+        }
+
+        TiffBuilder transformationGeoreferencing() {
+            doubles(34264,
+                PIXEL_WIDTH, 0, 0, WEST,
+                0, -PIXEL_HEIGHT, 0, NORTH,
+                0, 0, 0, 0,
+                0, 0, 0, 1);
+            shorts(34735, geoKeys(false, false));
+            return this;
+        }
+
+        TiffBuilder projectedGeoreferencing() {
+            doubles(33922, 0, 0, 0, 500000, 6650000, 0);
+            doubles(33550, 30, 30, 0);
+            shorts(34735, geoKeys(false, true));
+            return this;
+        }
+
+        private void shorts(int tag, int... values) {
+            ByteBuffer buffer = ByteBuffer.allocate(values.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+            for (int value : values) {
+                buffer.putShort((short) value);
+            }
+            fields.put(tag, new Field(SHORT, values.length, buffer.array()));
+        }
+
+        private void doubles(int tag, double... values) {
+            ByteBuffer buffer = ByteBuffer.allocate(values.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+            for (double value : values) {
+                buffer.putDouble(value);
+            }
+            fields.put(tag, new Field(DOUBLE, values.length, buffer.array()));
+        }
+
+        private void offsets(int tag, long... values) {
+            ByteBuffer buffer = ByteBuffer.allocate(values.length * (bigTiff ? 8 : 4)).order(ByteOrder.LITTLE_ENDIAN);
+            for (long value : values) {
+                if (bigTiff) {
+                    buffer.putLong(value);
+                } else {
+                    buffer.putInt((int) value);
+                }
+            }
+            fields.put(tag, new Field(bigTiff ? LONG8 : LONG, values.length, buffer.array()));
+        }
+
+        /**
+         * Header, then the pixel blocks, then the directory, then the values too large to sit inline
+         */
+        byte[] build() {
+            long position = bigTiff ? 16 : 8;
+            long[] blockOffsets = new long[blocks.size()];
+            long[] blockCounts = new long[blocks.size()];
+            for (int i = 0; i < blocks.size(); i++) {
+                blockOffsets[i] = position;
+                blockCounts[i] = blocks.get(i).length;
+                position += blocks.get(i).length;
+            }
+            offsets(tiled ? 324 : 273, blockOffsets);
+            offsets(tiled ? 325 : 279, blockCounts);
+
+            long directoryOffset = position + (position & 1);
+            int entrySize = bigTiff ? 20 : 12;
+            int inlineSize = bigTiff ? 8 : 4;
+            long valuesOffset = directoryOffset + (bigTiff ? 8 : 2) + (long) fields.size() * entrySize + (bigTiff ? 8 : 4);
+
+            ByteBuffer out = ByteBuffer.allocate((int) (valuesOffset + outOfLineSize(inlineSize)))
+                .order(ByteOrder.LITTLE_ENDIAN);
+            out.put((byte) 'I').put((byte) 'I');
+            if (bigTiff) {
+                out.putShort((short) 43).putShort((short) 8).putShort((short) 0).putLong(directoryOffset);
+            } else {
+                out.putShort((short) 42).putInt((int) directoryOffset);
+            }
+            for (byte[] block : blocks) {
+                out.put(block);
+            }
+
+            out.position((int) directoryOffset);
+            if (bigTiff) {
+                out.putLong(fields.size());
+            } else {
+                out.putShort((short) fields.size());
+            }
+            long nextValue = valuesOffset;
+            List<byte[]> outOfLine = new ArrayList<>();
+            for (Map.Entry<Integer, Field> entry : fields.entrySet()) {
+                Field field = entry.getValue();
+                out.putShort((short) (int) entry.getKey()).putShort((short) field.type());
+                if (bigTiff) {
+                    out.putLong(field.count());
+                } else {
+                    out.putInt((int) field.count());
+                }
+                if (field.value().length <= inlineSize) {
+                    out.put(Arrays.copyOf(field.value(), inlineSize));
+                } else {
+                    if (bigTiff) {
+                        out.putLong(nextValue);
+                    } else {
+                        out.putInt((int) nextValue);
+                    }
+                    outOfLine.add(field.value());
+                    nextValue += field.value().length + (field.value().length & 1);
+                }
+            }
+            // No further directories
+            if (bigTiff) {
+                out.putLong(0);
+            } else {
+                out.putInt(0);
+            }
+            for (byte[] value : outOfLine) {
+                out.put(value);
+                if ((value.length & 1) == 1) {
+                    out.put((byte) 0);
+                }
+            }
+            return out.array();
+        }
+
+        private long outOfLineSize(int inlineSize) {
+            long size = 0;
+            for (Field field : fields.values()) {
+                if (field.value().length > inlineSize) {
+                    size += field.value().length + (field.value().length & 1);
+                }
+            }
+            return size;
+        }
+
+        private static byte[] deflate(byte[] data) {
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
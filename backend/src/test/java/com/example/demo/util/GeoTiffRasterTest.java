@@ -0,0 +1,171 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.example.demo.util.GeoTiffFixtures.HEIGHT;
+import static com.example.demo.util.GeoTiffFixtures.LARGE_HEIGHT;
+import static com.example.demo.util.GeoTiffFixtures.LARGE_WIDTH;
+import static com.example.demo.util.GeoTiffFixtures.NORTH;
+import static com.example.demo.util.GeoTiffFixtures.PIXEL_HEIGHT;
+import static com.example.demo.util.GeoTiffFixtures.PIXEL_WIDTH;
+import static com.example.demo.util.GeoTiffFixtures.WEST;
+import static com.example.demo.util.GeoTiffFixtures.WIDTH;
+import static com.example.demo.util.GeoTiffFixtures.sample;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GeoTiffRaster against the fixtures in src/test/resources/geotiff (see GeoTiffFixtures): every
+ * compression and layout decodes to the same pixels, and coordinates map to pixels and window
+ * averages the way rasterio's index and a numpy window mean do.
+ */
+class GeoTiffRasterTest {
+
+    @TempDir
+    Path cacheDirectory;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "none-strips.tif", "none-tiles.tif", "none-planar-strips.tif", "bigtiff-rgba-tiles.tif",
+        "lzw-strips.tif", "lzw-predictor-tiles.tif", "lzw-large.tif",
+        "zlib-predictor-strips.tif", "deflate-tiles.tif", "deflate-predictor-planar-tiles.tif",
+        "packbits-strips.tif", "model-transformation.tif", "pixel-is-point.tif"
+    })
+    void everyPixelDecodes(String fixture) throws IOException {
+        GeoTiffRaster raster = open(fixture);
+        int width = fixture.equals("lzw-large.tif") ? LARGE_WIDTH : WIDTH;
+        int height = fixture.equals("lzw-large.tif") ? LARGE_HEIGHT : HEIGHT;
+        assertEquals(width, raster.getWidth());
+        assertEquals(height, raster.getHeight());
+
+        byte[] rgb = new byte[width * 3];
+        for (int row = 0; row < height; row++) {
+            raster.readRow(row, rgb);
+            for (int col = 0; col < width; col++) {
+                for (int band = 0; band < 3; band++) {
+                    assertEquals(sample(row, col, band), rgb[col * 3 + band] & 0xff,
+                        fixture + ": row " + row + ", col " + col + ", band " + band);
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "none-strips.tif", "none-planar-strips.tif", "bigtiff-rgba-tiles.tif", "lzw-predictor-tiles.tif",
+        "model-transformation.tif", "pixel-is-point.tif"
+    })
+    void coordinatesMapToPixels(String fixture) throws IOException {
+        GeoTiffRaster raster = open(fixture);
+
+        for (long[] pixel : List.of(new long[] {0, 0}, new long[] {10, 17}, new long[] {HEIGHT - 1, WIDTH - 1})) {
+            double[] centre = centre(pixel[0], pixel[1]);
+            assertArrayEquals(pixel, raster.index(centre[0], centre[1]), fixture);
+            assertArrayEquals(centre, raster.pixelCentre(pixel[0], pixel[1]), 1e-9, fixture);
+        }
+        // A point on a pixel corner belongs to the pixel below and to the right of it
+        assertArrayEquals(new long[] {2, 3}, raster.index(-128.5, 59.5), fixture);
+        assertArrayEquals(new long[] {0, 0}, raster.index(WEST, NORTH), fixture);
+        // Outside the raster: indices past the edges, no average
+        assertArrayEquals(new long[] {-1, -1}, raster.index(-130.25, 60.1), fixture);
+        assertArrayEquals(new long[] {HEIGHT, WIDTH}, raster.index(-111.4, 54.2), fixture);
+        assertNull(raster.averageRgb(-140.0, 70.0, 2), fixture);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "none-strips.tif", "none-tiles.tif", "none-planar-strips.tif", "bigtiff-rgba-tiles.tif",
+        "lzw-strips.tif", "lzw-predictor-tiles.tif", "zlib-predictor-strips.tif", "deflate-tiles.tif",
+        "deflate-predictor-planar-tiles.tif", "packbits-strips.tif"
+    })
+    void averageRgbIsTheTruncatedWindowMean(String fixture) throws IOException {
+        GeoTiffRaster raster = open(fixture);
+
+        // Interior window
+        assertArrayEquals(new int[] {146, 112, 102}, average(raster, 16, 28, 2), fixture);
+        // Straddling the edge of the flat grey block
+        assertArrayEquals(new int[] {121, 112, 87}, average(raster, 14, 24, 1), fixture);
+        // Inside the grey block
+        assertArrayEquals(new int[] {128, 128, 128}, average(raster, 8, 18, 1), fixture);
+        // Clipped to the raster at the top-left and bottom-right corners
+        assertArrayEquals(new int[] {81, 111, 123}, average(raster, 0, 0, 2), fixture);
+        assertArrayEquals(new int[] {90, 122, 119}, average(raster, HEIGHT - 1, WIDTH - 1, 1), fixture);
+        // Radius 0 is the pixel itself
+        assertArrayEquals(new int[] {134, 233, 236}, average(raster, 5, 30, 0), fixture);
+
+        for (int radius = 0; radius <= 3; radius++) {
+            for (int row = 0; row < HEIGHT; row += 5) {
+                for (int col = 0; col < WIDTH; col += 6) {
+                    assertArrayEquals(expectedAverage(row, col, radius), average(raster, row, col, radius),
+                        fixture + ": window at " + row + ", " + col + ", radius " + radius);
+                }
+            }
+        }
+    }
+
+    @Test
+    void compressedRasterIsDecodedOnceIntoTheCache() throws IOException {
+        open("lzw-strips.tif");
+        open("lzw-strips.tif");
+        open("none-strips.tif");
+
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            List<Path> cached = files.toList();
+            assertEquals(1, cached.size(), "cache files: " + cached);
+            assertTrue(cached.get(0).getFileName().toString().startsWith("lzw-strips.tif."));
+            assertEquals((long) WIDTH * HEIGHT * 3, Files.size(cached.get(0)));
+        }
+    }
+
+    @Test
+    void projectedRasterIsRejected() {
+        IOException error = assertThrows(IOException.class, () -> open("projected.tif"));
+        assertTrue(error.getMessage().contains("EPSG:4326"), error.getMessage());
+    }
+
+    private GeoTiffRaster open(String fixture) throws IOException {
+        try {
+            Path path = Paths.get(GeoTiffRasterTest.class.getResource("/geotiff/" + fixture).toURI());
+            return GeoTiffRaster.open(path, cacheDirectory);
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static double[] centre(long row, long col) {
+        return new double[] {WEST + (col + 0.5) * PIXEL_WIDTH, NORTH - (row + 0.5) * PIXEL_HEIGHT};
+    }
+
+    private static int[] average(GeoTiffRaster raster, int row, int col, int radius) {
+        double[] centre = centre(row, col);
+        return raster.averageRgb(centre[0], centre[1], radius);
+    }
+
+    private static int[] expectedAverage(int row, int col, int radius) {
+        long[] sums = new long[3];
+        int count = 0;
+        for (int r = Math.max(row - radius, 0); r <= Math.min(row + radius, HEIGHT - 1); r++) {
+            for (int c = Math.max(col - radius, 0); c <= Math.min(col + radius, WIDTH - 1); c++) {
+                for (int band = 0; band < 3; band++) {
+                    sums[band] += sample(r, c, band);
+                }
+                count++;
+            }
+        }
+        return new int[] {(int) (sums[0] / count), (int) (sums[1] / count), (int) (sums[2] / count)};
+    }
+}
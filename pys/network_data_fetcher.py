@@ -1,7 +1,14 @@
 # -*- coding: utf-8 -*-
 
+import os
+
 import requests
 
+# Backend endpoint that caches NBC2020 hazard values (GET /api/seismic-hazard); unset = query NRCan directly
+SEISMIC_HAZARD_URL = os.environ.get("SEISMIC_HAZARD_URL")
+# Shared secret for that endpoint (the backend's app.seismic.hazard-token); unset = query NRCan directly
+SEISMIC_HAZARD_TOKEN = os.environ.get("SEISMIC_HAZARD_TOKEN")
+
 
 # coordinates returned are not accurate
 # def get_lat_lon_from_address(address):
@@ -83,6 +90,24 @@ def seismic_hazard_data_fetcher(result_dict):
                            result['sa5p0'], result['sa10p0'], result['pga']]
 
 
+def get_cached_seismic_hazard(latitude, longitude, site_class):
+    """Return (sa_site, sa_x450) from the backend hazard cache, or None if it is unavailable."""
+    if not SEISMIC_HAZARD_URL or not SEISMIC_HAZARD_TOKEN:
+        return None
+    try:
+        response = requests.get(SEISMIC_HAZARD_URL,
+                                params={"lat": latitude, "lon": longitude, "siteClass": site_class},
+                                headers={"X-Service-Token": SEISMIC_HAZARD_TOKEN},
+                                timeout=35)
+        if response.status_code == 200:
+            data = response.json()
+            return data.get("sa_site"), data.get("sa_x450")
+        print(f"Hazard cache error: {response.status_code} - {response.text}")
+    except requests.RequestException as e:
+        print("Hazard cache request failed:", e)
+    return None
+
+
 # Send GraphQL request and print results to console
 def get_seismic_hazard_data(latitude, longitude, site_class):
     query = create_graphql_query(latitude, longitude, site_class)
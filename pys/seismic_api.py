@@ -1,5 +1,5 @@
 from flask import Flask, request, jsonify
-from network_data_fetcher import get_lat_lon_from_address1, get_address_from_lat_lon, get_seismic_hazard_data
+from network_data_fetcher import get_lat_lon_from_address1, get_address_from_lat_lon, get_seismic_hazard_data, get_cached_seismic_hazard
 from geo_tif_handler import get_pixel_rgb, cosine_similarity
 import os
 
@@ -49,17 +49,21 @@ def seismic_info():
     # 5. Seismic hazard data
     sa_site = None
     sa_x450 = None
-    try:
-        site_data = get_seismic_hazard_data(lat, lon, site_class)
-        if site_data and len(site_data) > 0:
-            result = site_data[0]
-            sa_site = [result['sa0p2'], result['sa0p5'], result['sa1p0'], result['sa2p0'], result['sa5p0'], result['sa10p0'], result['pga']]
-        x450_data = get_seismic_hazard_data(lat, lon, 'X450')
-        if x450_data and len(x450_data) > 0:
-            result = x450_data[0]
-            sa_x450 = [result['sa0p2'], result['sa0p5'], result['sa1p0'], result['sa2p0'], result['sa5p0'], result['sa10p0'], result['pga']]
-    except Exception as e:
-        return jsonify({'error': f'Failed to fetch seismic hazard data: {str(e)}'}), 400
+    cached = get_cached_seismic_hazard(lat, lon, site_class)
+    if cached is not None:
+        sa_site, sa_x450 = cached
+    else:
+        try:
+            site_data = get_seismic_hazard_data(lat, lon, site_class)
+            if site_data and len(site_data) > 0:
+                result = site_data[0]
+                sa_site = [result['sa0p2'], result['sa0p5'], result['sa1p0'], result['sa2p0'], result['sa5p0'], result['sa10p0'], result['pga']]
+            x450_data = get_seismic_hazard_data(lat, lon, 'X450')
+            if x450_data and len(x450_data) > 0:
+                result = x450_data[0]
+                sa_x450 = [result['sa0p2'], result['sa0p5'], result['sa1p0'], result['sa2p0'], result['sa5p0'], result['sa10p0'], result['pga']]
+        except Exception as e:
+            return jsonify({'error': f'Failed to fetch seismic hazard data: {str(e)}'}), 400
 
     return jsonify({
         'site_class': site_class,